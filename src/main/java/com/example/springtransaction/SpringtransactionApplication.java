@@ -2,12 +2,20 @@ package com.example.springtransaction;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
+@EnableScheduling
 @SpringBootApplication
 public class SpringtransactionApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(SpringtransactionApplication.class, args);
+		SpringApplication application = new SpringApplication(SpringtransactionApplication.class);
+		// 시작 단계별 시간 기록 (StartupTimingReport)
+		if (Boolean.getBoolean("startup.report")) {
+			application.setApplicationStartup(new BufferingApplicationStartup(10_000));
+		}
+		application.run(args);
 	}
 
 }
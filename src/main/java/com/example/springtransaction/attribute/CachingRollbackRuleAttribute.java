@@ -0,0 +1,30 @@
+package com.example.springtransaction.attribute;
+
+import org.springframework.transaction.interceptor.RuleBasedTransactionAttribute;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 롤백 여부를 예외 클래스별로 기억하는 트랜잭션 속성
+ * RuleBasedTransactionAttribute.rollbackOn 은 예외가 발생할 때마다 rollbackFor, noRollbackFor 규칙을 모두 확인하고
+ * 규칙마다 예외 클래스 계층을 이름으로 비교한다. 결과는 예외 클래스에 따라서만 달라지므로 한 번만 계산한다.
+ */
+public class CachingRollbackRuleAttribute extends RuleBasedTransactionAttribute {
+
+    private final Map<Class<?>, Boolean> rollbackOnCache = new ConcurrentHashMap<>();
+
+    public CachingRollbackRuleAttribute(RuleBasedTransactionAttribute other) {
+        super(other);
+    }
+
+    @Override
+    public boolean rollbackOn(Throwable ex) {
+        Boolean rollback = rollbackOnCache.get(ex.getClass());
+        if (rollback == null) {
+            rollback = super.rollbackOn(ex);
+            rollbackOnCache.put(ex.getClass(), rollback);
+        }
+        return rollback;
+    }
+}
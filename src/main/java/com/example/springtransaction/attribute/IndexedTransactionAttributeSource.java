@@ -0,0 +1,103 @@
+package com.example.springtransaction.attribute;
+
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.interceptor.RuleBasedTransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttributeSource;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 트랜잭션 속성 인덱스
+ * 프록시를 만들 때 포인트컷이 모든 빈의 메서드에 대해 속성을 조회하므로, 그 결과를 (메서드, 대상 클래스) 표로 남겨둔다.
+ * 호출 시점에는 표에서 바로 찾는다.
+ *
+ * - 스프링 기본 구현(AbstractFallbackTransactionAttributeSource)은 호출마다 MethodClassKey 를 만들어 ConcurrentHashMap 을 조회한다.
+ *   이 표는 Method 로 찾은 뒤 대상 클래스는 참조 비교(==)만 하므로 조회할 때 객체를 만들지 않는다.
+ * - 표에 없는 조합은 원래 TransactionAttributeSource 로 계산해서 그 메서드의 배열만 복사해 추가한다.
+ *   (메서드 단위 copy-on-write, 전체 표를 복사하거나 전역 락을 잡지 않는다)
+ * - 롤백 규칙은 예외 클래스별로 결과를 기억하는 CachingRollbackRuleAttribute 로 바꾼다.
+ */
+public class IndexedTransactionAttributeSource implements TransactionAttributeSource {
+
+    private final TransactionAttributeSource delegate;
+    private final ConcurrentHashMap<Method, Entry[]> index = new ConcurrentHashMap<>();
+
+    public IndexedTransactionAttributeSource(TransactionAttributeSource delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public boolean isCandidateClass(Class<?> targetClass) {
+        return delegate.isCandidateClass(targetClass);
+    }
+
+    @Override
+    @Nullable
+    public TransactionAttribute getTransactionAttribute(Method method, @Nullable Class<?> targetClass) {
+        Entry entry = find(index.get(method), targetClass);
+        if (entry != null) {
+            return entry.attribute;
+        }
+        return resolve(method, targetClass);
+    }
+
+    /**
+     * 인덱스에 등록된 (메서드, 대상 클래스) 조합 수
+     */
+    public int size() {
+        int size = 0;
+        for (Entry[] entries : index.values()) {
+            size += entries.length;
+        }
+        return size;
+    }
+
+    /**
+     * 원래 TransactionAttributeSource 로 계산해서 그 메서드의 배열에 추가한다.
+     * 같은 조합을 동시에 계산하면 먼저 추가된 결과를 사용한다.
+     */
+    private TransactionAttribute resolve(Method method, @Nullable Class<?> targetClass) {
+        TransactionAttribute resolved = delegate.getTransactionAttribute(method, targetClass);
+        TransactionAttribute attribute = resolved instanceof RuleBasedTransactionAttribute
+                ? new CachingRollbackRuleAttribute((RuleBasedTransactionAttribute) resolved)
+                : resolved;
+
+        Entry[] entries = index.compute(method, (key, current) -> {
+            if (current == null) {
+                return new Entry[]{new Entry(targetClass, attribute)};
+            }
+            if (find(current, targetClass) != null) {
+                return current;
+            }
+            Entry[] next = new Entry[current.length + 1];
+            System.arraycopy(current, 0, next, 0, current.length);
+            next[current.length] = new Entry(targetClass, attribute);
+            return next;
+        });
+        return find(entries, targetClass).attribute;
+    }
+
+    @Nullable
+    private static Entry find(@Nullable Entry[] entries, @Nullable Class<?> targetClass) {
+        if (entries != null) {
+            for (Entry entry : entries) {
+                if (entry.targetClass == targetClass) {
+                    return entry;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static class Entry {
+        private final Class<?> targetClass;
+        private final TransactionAttribute attribute; // 트랜잭션 대상이 아니면 null
+
+        private Entry(Class<?> targetClass, TransactionAttribute attribute) {
+            this.targetClass = targetClass;
+            this.attribute = attribute;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.springtransaction.attribute;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.PriorityOrdered;
+import org.springframework.transaction.interceptor.TransactionAttributeSource;
+
+/**
+ * 트랜잭션 속성 인덱스 구성 (tx.attribute-index.enabled=true 일 때만)
+ * 시작 시간, 호출 비용 개선이 벤치마크(TransactionAttributeIndexBenchmarkTest)로 확인되기 전까지는 기본으로 꺼둔다.
+ * 스프링이 등록하는 TransactionAttributeSource 빈을 IndexedTransactionAttributeSource 로 감싼다.
+ * 트랜잭션 어드바이저(포인트컷)와 TransactionInterceptor 가 같은 빈을 주입받으므로 둘 다 인덱스를 사용한다.
+ *
+ * 프록시 생성기(Ordered)보다 먼저 등록되어야 하므로 PriorityOrdered BeanPostProcessor 를 static 으로 등록한다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "tx.attribute-index.enabled", havingValue = "true")
+public class TransactionAttributeIndexConfig {
+
+    @Bean
+    public static BeanPostProcessor transactionAttributeIndexPostProcessor() {
+        return new IndexingPostProcessor();
+    }
+
+    private static class IndexingPostProcessor implements BeanPostProcessor, PriorityOrdered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof TransactionAttributeSource && !(bean instanceof IndexedTransactionAttributeSource)) {
+                return new IndexedTransactionAttributeSource((TransactionAttributeSource) bean);
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.springtransaction.bulkhead;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 동시 실행 수 제한
+ * 트랜잭션이 시작되기 전에 동시 실행 수를 제한하기 때문에 대기하는 스레드는 DB 커넥션을 잡고 있지 않는다.
+ * 같은 이름의 메서드는 하나의 제한을 함께 사용한다.
+ *
+ * 설정은 bulkhead.{이름}.* 프로퍼티로 변경할 수 있다.
+ * max-concurrent : 동시 실행 수 (adaptive 인 경우 초기값), 기본 10
+ * queue-timeout-millis : 대기 시간, 기본 1000. 지나면 BulkheadRejectedException, 0 이면 대기하지 않고 바로 거절한다.
+ * adaptive : 관찰한 지연 시간에 따라 동시 실행 수를 조절한다. (AIMD)
+ * target-latency-millis, min-limit, max-limit : adaptive 설정
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Bulkhead {
+
+    String value();
+}
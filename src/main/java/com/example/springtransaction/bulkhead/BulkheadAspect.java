@@ -0,0 +1,68 @@
+package com.example.springtransaction.bulkhead;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @Bulkhead 동시 실행 수 제한
+ * 트랜잭션 AOP보다 먼저 실행되어야 대기하는 동안 트랜잭션(DB 커넥션)을 잡지 않는다. -> 가장 높은 우선순위
+ *
+ * 켜고 끄는 설정은 없다. @Bulkhead 가 붙은 메서드는 항상 제한되고,
+ * 설정이 없으면 동시 10개, 1초 동안 자리가 나지 않으면 BulkheadRejectedException 으로 거절한다.
+ */
+@Slf4j
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class BulkheadAspect {
+
+    private final Environment env;
+    private final Map<Method, ConcurrencyLimiter> limiterByMethod = new ConcurrentHashMap<>();
+    private final Map<String, ConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    @Around("@annotation(bulkhead)")
+    public Object limit(ProceedingJoinPoint joinPoint, Bulkhead bulkhead) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        ConcurrencyLimiter limiter = limiterByMethod.computeIfAbsent(method, key -> limiter(bulkhead.value()));
+
+        long start = limiter.acquire();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            limiter.release(start);
+        }
+    }
+
+    public Map<String, ConcurrencyLimiter> getLimiters() {
+        return limiters;
+    }
+
+    private ConcurrencyLimiter limiter(String name) {
+        return limiters.computeIfAbsent(name, key -> {
+            String prefix = "bulkhead." + name + ".";
+            int maxConcurrent = env.getProperty(prefix + "max-concurrent", Integer.class, 10);
+            ConcurrencyLimiter limiter = new ConcurrencyLimiter(name,
+                    maxConcurrent,
+                    env.getProperty(prefix + "queue-timeout-millis", Long.class, 1000L),
+                    env.getProperty(prefix + "adaptive", Boolean.class, false),
+                    env.getProperty(prefix + "target-latency-millis", Long.class, 100L),
+                    env.getProperty(prefix + "min-limit", Integer.class, 1),
+                    env.getProperty(prefix + "max-limit", Integer.class, maxConcurrent * 4));
+            log.info("bulkhead 생성 name={}, limit={}", name, limiter.getLimit());
+            return limiter;
+        });
+    }
+}
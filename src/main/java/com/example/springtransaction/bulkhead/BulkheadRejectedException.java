@@ -0,0 +1,8 @@
+package com.example.springtransaction.bulkhead;
+
+public class BulkheadRejectedException extends RuntimeException {
+
+    public BulkheadRejectedException(String message) {
+        super(message);
+    }
+}
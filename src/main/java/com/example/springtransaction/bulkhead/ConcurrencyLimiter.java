@@ -0,0 +1,115 @@
+package com.example.springtransaction.bulkhead;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 동시 실행 수 제한기
+ * adaptive 인 경우 AIMD 방식으로 제한 값을 조절한다.
+ * - 지연 시간이 목표 이하 : 제한 값을 조금씩 늘린다. (limit 만큼 호출이 끝나면 +1)
+ * - 지연 시간이 목표 초과 : 제한 값을 비율로 줄인다. (x 0.9)
+ */
+public class ConcurrencyLimiter {
+
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final String name;
+    private final long queueTimeoutNanos;
+    private final boolean adaptive;
+    private final long targetLatencyNanos;
+    private final int minLimit;
+    private final int maxLimit;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final LongAdder rejected = new LongAdder();
+    private double limit;
+    private int inFlight;
+
+    public ConcurrencyLimiter(String name, int maxConcurrent, long queueTimeoutMillis,
+                              boolean adaptive, long targetLatencyMillis, int minLimit, int maxLimit) {
+        this.name = name;
+        this.limit = maxConcurrent;
+        this.queueTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(queueTimeoutMillis);
+        this.adaptive = adaptive;
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMillis);
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * 실행 허가를 얻는다. queue-timeout 동안 얻지 못하면 BulkheadRejectedException
+     * @return 실행 시작 시각, release 할 때 넘겨준다.
+     */
+    public long acquire() throws InterruptedException {
+        lock.lock();
+        try {
+            long remaining = queueTimeoutNanos;
+            while (inFlight >= (int) limit) {
+                if (remaining <= 0) {
+                    rejected.increment();
+                    throw new BulkheadRejectedException("동시 실행 수 초과 bulkhead=" + name + ", limit=" + (int) limit);
+                }
+                remaining = available.awaitNanos(remaining);
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+        return System.nanoTime();
+    }
+
+    public void release(long startNanos) {
+        long latency = System.nanoTime() - startNanos;
+        lock.lock();
+        try {
+            inFlight--;
+            if (adaptive && adjust(latency)) {
+                available.signalAll();
+            } else {
+                available.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 제한 값이 늘어나서 여러 스레드를 깨워야 하면 true
+    private boolean adjust(long latency) {
+        int before = (int) limit;
+        if (latency > targetLatencyNanos) {
+            limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+        } else {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+        return (int) limit > before;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+}
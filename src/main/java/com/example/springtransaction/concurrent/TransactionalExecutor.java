@@ -0,0 +1,37 @@
+package com.example.springtransaction.concurrent;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * 트랜잭션 서비스를 실행할 Executor (TransactionalExecutorConfig)
+ * Executor 를 구현하지 않는다. -> Executor 빈이 있으면 스프링 부트가 applicationTaskExecutor 를 등록하지 않는다.
+ */
+public class TransactionalExecutor implements AutoCloseable {
+
+    private final String mode;
+    private final ExecutorService executorService;
+
+    TransactionalExecutor(String mode, ExecutorService executorService) {
+        this.mode = mode;
+        this.executorService = executorService;
+    }
+
+    public <T> Future<T> submit(Callable<T> task) {
+        return executorService.submit(task);
+    }
+
+    public Future<?> submit(Runnable task) {
+        return executorService.submit(task);
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    @Override
+    public void close() {
+        executorService.shutdown();
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.springtransaction.concurrent;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * OrderService, MemberService 같은 트랜잭션 서비스를 실행할 Executor
+ * tx.executor.mode=platform : 고정 크기 플랫폼 스레드 풀 (기본)
+ * tx.executor.mode=virtual : 작업마다 가상 스레드 (JDK 21 이상)
+ *
+ * 프로젝트는 Java 11 로 빌드하기 때문에 가상 스레드 Executor 는 리플렉션으로 생성한다.
+ * 가상 스레드에서 어디가 캐리어 스레드를 고정(pinning)하는지는 ./gradlew virtualThreadTest -PvirtualThreads 로 확인한다.
+ *
+ * tx.executor.enabled=true 일 때만 등록한다.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "tx.executor.enabled", havingValue = "true")
+public class TransactionalExecutorConfig {
+
+    @Bean(destroyMethod = "close")
+    public TransactionalExecutor transactionalExecutor(@Value("${tx.executor.mode:platform}") String mode,
+                                                 @Value("${tx.executor.platform-threads:16}") int platformThreads) {
+        if ("virtual".equals(mode)) {
+            log.info("트랜잭션 서비스를 가상 스레드에서 실행합니다.");
+            return new TransactionalExecutor(mode, newVirtualThreadPerTaskExecutor());
+        }
+        log.info("트랜잭션 서비스를 플랫폼 스레드 {}개에서 실행합니다.", platformThreads);
+        return new TransactionalExecutor(mode, Executors.newFixedThreadPool(platformThreads, new NamedThreadFactory("tx-executor-")));
+    }
+
+    private ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("가상 스레드는 JDK 21 이상에서 사용할 수 있습니다. java.version="
+                    + System.getProperty("java.version"), e);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("가상 스레드 Executor 를 생성할 수 없습니다.", e);
+        }
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+
+        private final String prefix;
+        private final AtomicInteger sequence = new AtomicInteger();
+
+        private NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.springtransaction.jdbc;
+
+import org.springframework.lang.Nullable;
+
+import java.lang.reflect.Method;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+/**
+ * Connection 프록시 핸들러
+ * 대상 호출 전에 beforeInvoke 를 호출하고, 만든 Statement 는 statementProxy 가 돌려준 핸들러로 감싼다.
+ * StatementTrackingDataSource, ConnectionDepthDataSource, 테스트의 SqlCountingDataSource 가 사용한다.
+ */
+public class ConnectionProxy extends JdbcProxy<Connection> {
+
+    protected ConnectionProxy(Connection target) {
+        super(target);
+    }
+
+    public Connection proxy() {
+        return wrap(Connection.class, this);
+    }
+
+    @Override
+    protected final Object intercept(Method method, Object[] args) throws Throwable {
+        beforeInvoke(method, args);
+        Object result = proceed(method, args);
+        switch (method.getName()) {
+            case "createStatement":
+                return wrapStatement(Statement.class, (Statement) result, null);
+            case "prepareStatement":
+                return wrapStatement(PreparedStatement.class, (Statement) result, (String) args[0]);
+            case "prepareCall":
+                return wrapStatement(CallableStatement.class, (Statement) result, (String) args[0]);
+            default:
+                return result;
+        }
+    }
+
+    /**
+     * 대상 Connection 메서드를 호출하기 전에 할 일 (commit, rollback, close 기록 등)
+     */
+    protected void beforeInvoke(Method method, Object[] args) {
+    }
+
+    /**
+     * Statement 를 감쌀 핸들러, null 이면 감싸지 않는다.
+     *
+     * @param sql prepareStatement, prepareCall 의 SQL (createStatement 는 null)
+     */
+    @Nullable
+    protected JdbcProxy<Statement> statementProxy(Statement statement, @Nullable String sql) {
+        return null;
+    }
+
+    private Object wrapStatement(Class<? extends Statement> type, Statement statement, @Nullable String sql) {
+        JdbcProxy<Statement> handler = statementProxy(statement, sql);
+        return handler == null ? statement : wrap(type, handler);
+    }
+}
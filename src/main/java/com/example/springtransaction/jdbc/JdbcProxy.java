@@ -0,0 +1,52 @@
+package com.example.springtransaction.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * JDBC 객체(Connection, Statement)를 감싸는 JDK 동적 프록시 핸들러
+ * equals, hashCode 는 프록시 자신으로 처리하고, 나머지는 intercept 를 거쳐 대상에게 위임한다.
+ * 대상이 던진 예외는 InvocationTargetException 을 벗겨서 그대로 던진다.
+ */
+public abstract class JdbcProxy<T> implements InvocationHandler {
+
+    protected final T target;
+
+    protected JdbcProxy(T target) {
+        this.target = target;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> T wrap(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(JdbcProxy.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    @Override
+    public final Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                return intercept(method, args);
+        }
+    }
+
+    /**
+     * 대상 호출 전후에 할 일, 기본은 그대로 위임한다.
+     */
+    protected Object intercept(Method method, Object[] args) throws Throwable {
+        return proceed(method, args);
+    }
+
+    protected final Object proceed(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
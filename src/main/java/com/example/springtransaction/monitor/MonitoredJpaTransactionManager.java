@@ -0,0 +1,69 @@
+package com.example.springtransaction.monitor;
+
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionTimedOutException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 물리 트랜잭션의 시작과 종료를 OpenTransactionRegistry 에 기록하는 JpaTransactionManager
+ * 참여하는 논리 트랜잭션은 doBegin, doCleanupAfterCompletion 이 호출되지 않으므로 기록되지 않는다.
+ *
+ * 트랜잭션 timeout 은 마감 시각으로 바꿔서 TransactionDeadlines 에 기록한다.
+ * REQUIRES_NEW 내부 트랜잭션은 자신의 timeout 과 외부 트랜잭션의 남은 시간 중 작은 값을 사용한다.
+ * 이 값은 EntityManager 의 쿼리 timeout 힌트(javax.persistence.query.timeout)와 Hibernate 의 Statement timeout 에 반영된다.
+ */
+public class MonitoredJpaTransactionManager extends JpaTransactionManager {
+
+    private final OpenTransactionRegistry registry;
+    private final TransactionTimeoutMetrics timeoutMetrics;
+
+    public MonitoredJpaTransactionManager(OpenTransactionRegistry registry, TransactionTimeoutMetrics timeoutMetrics) {
+        this.registry = registry;
+        this.timeoutMetrics = timeoutMetrics;
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        long startNanos = System.nanoTime();
+        int timeout = determineTimeout(definition);
+        // timeout 은 초 단위로 올림되므로 물려받은 마감 시각을 넘지 않도록 한번 더 제한한다.
+        long deadline = timeout == TransactionDefinition.TIMEOUT_DEFAULT
+                ? TransactionDeadlines.NO_DEADLINE
+                : startNanos + TimeUnit.SECONDS.toNanos(timeout);
+        TransactionDeadlines.push(Math.min(deadline, TransactionDeadlines.current()));
+        try {
+            super.doBegin(transaction, definition);
+        } catch (RuntimeException | Error e) {
+            TransactionDeadlines.pop();
+            throw e;
+        }
+        registry.register(transaction, new OpenTransaction(Thread.currentThread(), definition, startNanos));
+    }
+
+    @Override
+    protected void doCleanupAfterCompletion(Object transaction) {
+        registry.remove(transaction);
+        TransactionDeadlines.pop();
+        super.doCleanupAfterCompletion(transaction);
+    }
+
+    /**
+     * 외부 물리 트랜잭션의 남은 시간을 물려받는다.
+     */
+    @Override
+    protected int determineTimeout(TransactionDefinition definition) {
+        int timeout = super.determineTimeout(definition);
+        long inherited = TransactionDeadlines.current();
+        if (inherited == TransactionDeadlines.NO_DEADLINE) {
+            return timeout;
+        }
+        int remaining = TransactionDeadlines.remainingSeconds(inherited, System.nanoTime());
+        if (remaining == 0) {
+            timeoutMetrics.record(definition.getName());
+            throw new TransactionTimedOutException("외부 트랜잭션의 남은 시간이 없습니다. name=" + definition.getName());
+        }
+        return timeout == TransactionDefinition.TIMEOUT_DEFAULT ? remaining : Math.min(timeout, remaining);
+    }
+}
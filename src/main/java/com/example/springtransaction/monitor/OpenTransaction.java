@@ -0,0 +1,41 @@
+package com.example.springtransaction.monitor;
+
+import lombok.Getter;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 진행중인 물리 트랜잭션
+ */
+@Getter
+public class OpenTransaction {
+
+    private final Thread thread;
+    private final TransactionDefinition definition;
+    private final long startNanos;
+    private volatile boolean abortRequested;
+
+    public OpenTransaction(Thread thread, TransactionDefinition definition, long startNanos) {
+        this.thread = thread;
+        this.definition = definition;
+        this.startNanos = startNanos;
+    }
+
+    public long ageMillis(long nowNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nowNanos - startNanos);
+    }
+
+    void requestAbort() {
+        abortRequested = true;
+    }
+
+    public String describe() {
+        return "name=" + definition.getName() +
+                ", propagation=" + definition.getPropagationBehavior() +
+                ", isolation=" + definition.getIsolationLevel() +
+                ", timeout=" + definition.getTimeout() +
+                ", readOnly=" + definition.isReadOnly() +
+                ", thread=" + thread.getName();
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.springtransaction.monitor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 진행중인 물리 트랜잭션 목록
+ * 트랜잭션 하나당 등록 1번, 제거 1번만 수행한다. (ConcurrentHashMap 의 CAS 기반 insert, remove)
+ * 키는 트랜잭션 매니저의 트랜잭션 객체이고 equals 를 재정의하지 않으므로 동일성으로 비교한다.
+ */
+public class OpenTransactionRegistry {
+
+    private final Map<Object, OpenTransaction> transactions = new ConcurrentHashMap<>();
+
+    public void register(Object transaction, OpenTransaction openTransaction) {
+        transactions.put(transaction, openTransaction);
+    }
+
+    public void remove(Object transaction) {
+        transactions.remove(transaction);
+    }
+
+    public List<OpenTransaction> snapshot() {
+        return new ArrayList<>(transactions.values());
+    }
+
+    public int size() {
+        return transactions.size();
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.springtransaction.monitor;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 스레드별로 지금 실행중인 JDBC Statement
+ * 다른 스레드에서 Statement.cancel() 로 실행중인 쿼리를 취소할 때 사용한다.
+ */
+@Slf4j
+public class RunningStatements {
+
+    private final Map<Thread, Statement> statements = new ConcurrentHashMap<>();
+
+    void started(Statement statement) {
+        statements.put(Thread.currentThread(), statement);
+    }
+
+    void finished(Statement statement) {
+        statements.remove(Thread.currentThread(), statement);
+    }
+
+    /**
+     * thread 에서 실행중인 쿼리를 취소한다.
+     * @return 실행중인 쿼리가 있어서 취소를 요청했으면 true
+     */
+    public boolean cancel(Thread thread) {
+        Statement statement = statements.get(thread);
+        if (statement == null) {
+            return false;
+        }
+        try {
+            statement.cancel();
+            return true;
+        } catch (SQLException e) {
+            log.warn("쿼리 취소 실패 thread={}", thread.getName(), e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.springtransaction.monitor;
+
+import com.example.springtransaction.jdbc.ConnectionProxy;
+import com.example.springtransaction.jdbc.JdbcProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+
+/**
+ * 실행중인 Statement 를 RunningStatements 에 기록하는 DataSource
+ * Connection 이 만든 Statement 를 프록시(ConnectionProxy)로 감싸서 execute* 호출 동안만 기록한다.
+ *
+ * 물리 트랜잭션에 마감 시각이 있으면 실행 전에 남은 시간으로 Statement.setQueryTimeout 을 설정한다.
+ * 남은 시간이 없거나 드라이버가 timeout 으로 취소하면 트랜잭션 이름별 timeout 횟수를 기록한다.
+ * TxMonitorConfig(tx.monitor.enabled=true) 가 등록할 때만 사용된다.
+ */
+public class StatementTrackingDataSource extends DelegatingDataSource {
+
+    private final RunningStatements runningStatements;
+    private final TransactionTimeoutMetrics timeoutMetrics;
+
+    public StatementTrackingDataSource(DataSource targetDataSource,
+                                       RunningStatements runningStatements,
+                                       TransactionTimeoutMetrics timeoutMetrics) {
+        super(targetDataSource);
+        this.runningStatements = runningStatements;
+        this.timeoutMetrics = timeoutMetrics;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return new TrackingConnection(super.getConnection()).proxy();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return new TrackingConnection(super.getConnection(username, password)).proxy();
+    }
+
+    private class TrackingConnection extends ConnectionProxy {
+
+        private TrackingConnection(Connection target) {
+            super(target);
+        }
+
+        @Override
+        protected JdbcProxy<Statement> statementProxy(Statement statement, String sql) {
+            return new TrackingStatement(statement);
+        }
+    }
+
+    private class TrackingStatement extends JdbcProxy<Statement> {
+
+        private TrackingStatement(Statement target) {
+            super(target);
+        }
+
+        @Override
+        protected Object intercept(Method method, Object[] args) throws Throwable {
+            if (!method.getName().startsWith("execute")) {
+                return proceed(method, args);
+            }
+            applyDeadline();
+            runningStatements.started(target);
+            try {
+                return proceed(method, args);
+            } catch (SQLTimeoutException e) {
+                timeoutMetrics.record(TransactionSynchronizationManager.getCurrentTransactionName());
+                throw e;
+            } finally {
+                runningStatements.finished(target);
+            }
+        }
+
+        private void applyDeadline() throws SQLException {
+            long deadline = TransactionDeadlines.current();
+            if (deadline == TransactionDeadlines.NO_DEADLINE) {
+                return;
+            }
+            int remaining = TransactionDeadlines.remainingSeconds(deadline, System.nanoTime());
+            if (remaining == 0) {
+                timeoutMetrics.record(TransactionSynchronizationManager.getCurrentTransactionName());
+                throw new SQLTimeoutException("트랜잭션 마감 시각이 지났습니다.");
+            }
+            int current = target.getQueryTimeout();
+            if (current == 0 || current > remaining) {
+                target.setQueryTimeout(remaining);
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.springtransaction.monitor;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 스레드별 물리 트랜잭션 마감 시각(nanoTime)
+ * REQUIRES_NEW 로 시작한 내부 트랜잭션은 외부 트랜잭션의 남은 시간을 물려받는다.
+ * 물리 트랜잭션이 시작될 때 push, 정리될 때 pop 한다. (MonitoredJpaTransactionManager)
+ *
+ * tx.monitor.enabled=true 일 때만 기록된다. 꺼져 있으면 스프링 부트 기본 JpaTransactionManager 를 사용하므로
+ * current() 는 항상 NO_DEADLINE 이고, JDBC Statement 에 남은 시간(setQueryTimeout)도 설정되지 않는다.
+ */
+public abstract class TransactionDeadlines {
+
+    public static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    private static final ThreadLocal<Deque<Long>> deadlines = ThreadLocal.withInitial(ArrayDeque::new);
+
+    static void push(long deadlineNanos) {
+        deadlines.get().push(deadlineNanos);
+    }
+
+    static void pop() {
+        Deque<Long> stack = deadlines.get();
+        stack.pop();
+        if (stack.isEmpty()) {
+            deadlines.remove();
+        }
+    }
+
+    /**
+     * 현재 스레드에서 진행중인 물리 트랜잭션의 마감 시각, 없으면 NO_DEADLINE
+     */
+    public static long current() {
+        Long deadline = deadlines.get().peek();
+        return deadline == null ? NO_DEADLINE : deadline;
+    }
+
+    /**
+     * 남은 시간을 초 단위로 올림한다. JDBC, 트랜잭션 timeout 이 초 단위이기 때문이다.
+     */
+    public static int remainingSeconds(long deadlineNanos, long nowNanos) {
+        long remaining = deadlineNanos - nowNanos;
+        if (remaining <= 0) {
+            return 0;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, (remaining + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+}
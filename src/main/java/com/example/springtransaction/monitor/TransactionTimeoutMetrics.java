@@ -0,0 +1,31 @@
+package com.example.springtransaction.monitor;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 트랜잭션 이름(@Transactional 메서드)별 timeout 발생 횟수
+ */
+public class TransactionTimeoutMetrics {
+
+    private static final String UNKNOWN = "unknown";
+
+    private final Map<String, LongAdder> timeouts = new ConcurrentHashMap<>();
+
+    public void record(String transactionName) {
+        timeouts.computeIfAbsent(transactionName == null ? UNKNOWN : transactionName, key -> new LongAdder()).increment();
+    }
+
+    public long count(String transactionName) {
+        LongAdder counter = timeouts.get(transactionName);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    public Map<String, Long> snapshot() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        timeouts.forEach((name, counter) -> snapshot.put(name, counter.sum()));
+        return snapshot;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.springtransaction.monitor;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 오래 열려있는 트랜잭션 감시
+ * sample-interval 마다 진행중인 물리 트랜잭션을 확인해서 threshold 를 넘은 트랜잭션의 스레드 스택과 트랜잭션 속성을 기록한다.
+ * abort-after 를 넘은 트랜잭션은 실행중인 쿼리를 취소(Statement.cancel)해서 트랜잭션이 예외로 롤백되게 한다.
+ */
+@Slf4j
+public class TransactionWatchdog implements AutoCloseable {
+
+    private static final int MAX_REPORTS = 100;
+
+    private final OpenTransactionRegistry registry;
+    private final RunningStatements runningStatements;
+    private final long thresholdMillis;
+    private final long abortAfterMillis; // 0 이하면 취소하지 않는다.
+
+    private final Deque<Report> reports = new ConcurrentLinkedDeque<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "tx-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public TransactionWatchdog(OpenTransactionRegistry registry, RunningStatements runningStatements,
+                               long thresholdMillis, long abortAfterMillis) {
+        this.registry = registry;
+        this.runningStatements = runningStatements;
+        this.thresholdMillis = thresholdMillis;
+        this.abortAfterMillis = abortAfterMillis;
+    }
+
+    public void start(long sampleIntervalMillis) {
+        scheduler.scheduleWithFixedDelay(this::sample, sampleIntervalMillis, sampleIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    public void sample() {
+        long now = System.nanoTime();
+        for (OpenTransaction transaction : registry.snapshot()) {
+            long age = transaction.ageMillis(now);
+            if (age < thresholdMillis) {
+                continue;
+            }
+            String stack = Arrays.stream(transaction.getThread().getStackTrace())
+                    .map(frame -> "\tat " + frame)
+                    .collect(Collectors.joining("\n"));
+            log.warn("오래 열려있는 트랜잭션 age={}ms, {}\n{}", age, transaction.describe(), stack);
+            addReport(new Report(transaction.describe(), age, stack));
+
+            if (abortAfterMillis > 0 && age >= abortAfterMillis && !transaction.isAbortRequested()) {
+                abort(transaction);
+            }
+        }
+    }
+
+    public List<Report> getReports() {
+        return new ArrayList<>(reports);
+    }
+
+    private void abort(OpenTransaction transaction) {
+        if (runningStatements.cancel(transaction.getThread())) {
+            transaction.requestAbort();
+            log.warn("트랜잭션의 실행중인 쿼리를 취소했습니다. {}", transaction.describe());
+        }
+    }
+
+    private void addReport(Report report) {
+        reports.addLast(report);
+        while (reports.size() > MAX_REPORTS) {
+            reports.pollFirst();
+        }
+    }
+
+    @Getter
+    public static class Report {
+        private final String transaction;
+        private final long ageMillis;
+        private final String stack;
+
+        public Report(String transaction, long ageMillis, String stack) {
+            this.transaction = transaction;
+            this.ageMillis = ageMillis;
+            this.stack = stack;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.springtransaction.monitor;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+/**
+ * 트랜잭션 감시 구성 (tx.monitor.enabled=true)
+ * 스프링 부트가 등록하는 JpaTransactionManager 대신 MonitoredJpaTransactionManager 를 등록하고,
+ * DataSource 를 StatementTrackingDataSource 로 감싼다.
+ * -> 오래 열려있는 트랜잭션 감시, 트랜잭션 마감 시각을 모든 JDBC Statement 에 전파
+ *
+ * 마감 시각 전파(TransactionDeadlines)도 이 구성에 포함되어 있으므로 꺼져 있으면 동작하지 않는다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "tx.monitor.enabled", havingValue = "true")
+public class TxMonitorConfig {
+
+    @Bean
+    public OpenTransactionRegistry openTransactionRegistry() {
+        return new OpenTransactionRegistry();
+    }
+
+    @Bean
+    public RunningStatements runningStatements() {
+        return new RunningStatements();
+    }
+
+    @Bean
+    public TransactionTimeoutMetrics transactionTimeoutMetrics() {
+        return new TransactionTimeoutMetrics();
+    }
+
+    @Bean
+    public static BeanPostProcessor statementTrackingDataSourcePostProcessor(ObjectProvider<RunningStatements> runningStatements,
+                                                                              ObjectProvider<TransactionTimeoutMetrics> timeoutMetrics) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof StatementTrackingDataSource)) {
+                    return new StatementTrackingDataSource((DataSource) bean,
+                            runningStatements.getObject(), timeoutMetrics.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public PlatformTransactionManager transactionManager(EntityManagerFactory entityManagerFactory,
+                                                         OpenTransactionRegistry openTransactionRegistry,
+                                                         TransactionTimeoutMetrics transactionTimeoutMetrics,
+                                                         ObjectProvider<TransactionManagerCustomizers> customizers) {
+        MonitoredJpaTransactionManager transactionManager =
+                new MonitoredJpaTransactionManager(openTransactionRegistry, transactionTimeoutMetrics);
+        transactionManager.setEntityManagerFactory(entityManagerFactory);
+        customizers.ifAvailable(c -> c.customize(transactionManager));
+        return transactionManager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public TransactionWatchdog transactionWatchdog(OpenTransactionRegistry openTransactionRegistry,
+                                                   RunningStatements runningStatements,
+                                                   @Value("${tx.watchdog.threshold-millis:30000}") long thresholdMillis,
+                                                   @Value("${tx.watchdog.abort-after-millis:0}") long abortAfterMillis,
+                                                   @Value("${tx.watchdog.sample-interval-millis:5000}") long sampleIntervalMillis) {
+        TransactionWatchdog watchdog = new TransactionWatchdog(openTransactionRegistry, runningStatements,
+                thresholdMillis, abortAfterMillis);
+        watchdog.start(sampleIntervalMillis);
+        return watchdog;
+    }
+}
@@ -6,7 +6,9 @@ import lombok.Setter;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.PrePersist;
 import javax.persistence.Table;
+import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "orders") // 데이터베이스 예약어 order by가 있어서 orders로 테이블명을 지정해준다.
@@ -19,7 +21,15 @@ public class Order {
 
     private String username; // 정상, 예외, 잔고부족
     private String payStatus;  // 대기, 완료
+    private LocalDateTime orderedAt; // 보관(OrderArchiver) 기준 시각
 
     public Order() {
     }
+
+    @PrePersist
+    void prePersist() {
+        if (orderedAt == null) {
+            orderedAt = LocalDateTime.now();
+        }
+    }
 }
@@ -0,0 +1,41 @@
+package com.example.springtransaction.order;
+
+import lombok.Getter;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * 보관 테이블로 옮겨진 주문 (OrderArchiver)
+ * id는 orders 테이블의 id를 그대로 사용한다. 옮겨진 뒤에는 변경하지 않는다.
+ */
+@Entity
+@Table(name = "orders_archive")
+@Getter
+public class OrderArchive {
+
+    @Id
+    private Long id;
+
+    private String username;
+    private String payStatus;
+    private LocalDateTime orderedAt;
+    private LocalDateTime archivedAt;
+
+    protected OrderArchive() {
+    }
+
+    /**
+     * 조회용 Order 로 변환한다. 영속 상태가 아니므로 이 Order 를 다시 저장하면 안 된다.
+     */
+    public Order toOrder() {
+        Order order = new Order();
+        order.setId(id);
+        order.setUsername(username);
+        order.setPayStatus(payStatus);
+        order.setOrderedAt(orderedAt);
+        return order;
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.springtransaction.order;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface OrderArchiveRepository extends JpaRepository<OrderArchive, Long> {
+}
@@ -0,0 +1,179 @@
+package com.example.springtransaction.order;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 오래된 '완료' 주문을 orders 에서 orders_archive 로 옮긴다.
+ *
+ * - id 순서로 chunkSize 건씩 id 범위를 정하고, 범위마다 하나의 트랜잭션에서 대상 주문을 잠근 뒤 INSERT ... SELECT 후 DELETE 한다.
+ *   -> 중간에 종료되어도 범위 단위로 커밋 또는 롤백되므로 주문이 사라지거나 두 테이블에 모두 남지 않는다.
+ * - 진행 위치를 따로 저장하지 않는다. 다시 시작하면 아직 남아있는 대상 주문의 처음부터 이어서 옮긴다.
+ * - 범위 트랜잭션의 소요 시간을 보고 스스로 속도를 조절한다.
+ *   목표 시간보다 빠르면 chunk 를 조금씩 키우고, 느리면 절반으로 줄인다. (AIMD)
+ *   범위 사이에는 소요 시간 * pause-ratio 만큼 쉬어서 주문 트랜잭션이 쓸 DB 자원을 남겨둔다.
+ *
+ * order.archive.enabled=true 이면 주기적으로 실행한다.
+ */
+@Slf4j
+@Component
+public class OrderArchiver {
+
+    private static final String SETTLED = "완료";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate txTemplate;
+    private final OrderStatusCounters orderStatusCounters;
+    private final boolean enabled;
+    private final Duration retention;
+    private final int minChunkSize;
+    private final int maxChunkSize;
+    private final long targetLatencyNanos;
+    private final double pauseRatio;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile int chunkSize;
+
+    public OrderArchiver(JdbcTemplate jdbcTemplate,
+                         PlatformTransactionManager txManager,
+                         OrderStatusCounters orderStatusCounters,
+                         @Value("${order.archive.enabled:false}") boolean enabled,
+                         @Value("${order.archive.retention-days:30}") long retentionDays,
+                         @Value("${order.archive.chunk-size:500}") int chunkSize,
+                         @Value("${order.archive.min-chunk-size:50}") int minChunkSize,
+                         @Value("${order.archive.max-chunk-size:5000}") int maxChunkSize,
+                         @Value("${order.archive.target-latency-millis:50}") long targetLatencyMillis,
+                         @Value("${order.archive.pause-ratio:1.0}") double pauseRatio) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.txTemplate = new TransactionTemplate(txManager);
+        this.txTemplate.setName("OrderArchiver.archiveRange");
+        this.orderStatusCounters = orderStatusCounters;
+        this.enabled = enabled;
+        this.retention = Duration.ofDays(retentionDays);
+        this.chunkSize = chunkSize;
+        this.minChunkSize = minChunkSize;
+        this.maxChunkSize = maxChunkSize;
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMillis);
+        this.pauseRatio = pauseRatio;
+    }
+
+    @Scheduled(initialDelayString = "${order.archive.interval-millis:3600000}",
+            fixedDelayString = "${order.archive.interval-millis:3600000}")
+    public void scheduledArchive() {
+        if (enabled) {
+            archive(LocalDateTime.now().minus(retention));
+        }
+    }
+
+    /**
+     * cutoff 이전에 주문된 '완료' 주문을 모두 옮긴다.
+     * 이미 다른 스레드에서 실행중이면 바로 반환한다.
+     *
+     * @return 옮긴 주문 수
+     */
+    public long archive(LocalDateTime cutoff) {
+        if (!running.compareAndSet(false, true)) {
+            log.info("주문 보관이 이미 실행중입니다.");
+            return 0;
+        }
+        try {
+            return archiveUntilDone(Timestamp.valueOf(cutoff));
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    private long archiveUntilDone(Timestamp cutoff) {
+        long total = 0;
+        long cursor = 0; // 이 id 까지는 대상 주문이 없다.
+        while (!Thread.currentThread().isInterrupted()) {
+            Long to = upperBound(cursor, cutoff, chunkSize);
+            if (to == null) {
+                break;
+            }
+            long from = cursor + 1;
+            long start = System.nanoTime();
+            int moved = txTemplate.execute(status -> archiveRange(from, to, cutoff));
+            long elapsed = System.nanoTime() - start;
+
+            total += moved;
+            cursor = to;
+            log.debug("주문 보관 id {} ~ {}, {}건, {}ms, chunkSize={}", from, to, moved,
+                    TimeUnit.NANOSECONDS.toMillis(elapsed), chunkSize);
+            adjust(elapsed);
+            pause(elapsed);
+        }
+        log.info("주문 보관 완료 {}건", total);
+        return total;
+    }
+
+    /**
+     * cursor 다음의 대상 주문 size 건을 포함하는 id 범위의 끝, 대상이 없으면 null
+     * id(PK) 순서로 읽기 때문에 이미 옮긴 앞쪽 범위를 다시 읽지 않는다.
+     */
+    private Long upperBound(long cursor, Timestamp cutoff, int size) {
+        return jdbcTemplate.queryForObject(
+                "select max(id) from (select id from orders" +
+                        " where id > ? and pay_status = ? and ordered_at < ? order by id limit ?)",
+                Long.class, cursor, SETTLED, cutoff, size);
+    }
+
+    /**
+     * 대상 주문을 먼저 잠가서(for update) 옮기는 동안 상태가 바뀌지 않게 하고,
+     * 삭제는 조건을 다시 평가하지 않고 이번에 보관 테이블로 복사한 id 만 지운다.
+     */
+    private int archiveRange(long from, long to, Timestamp cutoff) {
+        jdbcTemplate.queryForList(
+                "select id from orders where id between ? and ? and pay_status = ? and ordered_at < ? for update",
+                Long.class, from, to, SETTLED, cutoff);
+        int inserted = jdbcTemplate.update(
+                "insert into orders_archive (id, username, pay_status, ordered_at, archived_at)" +
+                        " select id, username, pay_status, ordered_at, current_timestamp from orders" +
+                        " where id between ? and ? and pay_status = ? and ordered_at < ?",
+                from, to, SETTLED, cutoff);
+        int deleted = jdbcTemplate.update(
+                "delete from orders where id in (select id from orders_archive where id between ? and ?)",
+                from, to);
+        if (inserted != deleted) {
+            // 잠그지 못한 주문이 그 사이에 지워졌다. 롤백하고 다음 실행에서 다시 옮긴다.
+            throw new IllegalStateException("보관 건수 불일치 inserted=" + inserted + ", deleted=" + deleted);
+        }
+        orderStatusCounters.addAfterCommit(SETTLED, -deleted);
+        return deleted;
+    }
+
+    private void adjust(long elapsedNanos) {
+        if (elapsedNanos > targetLatencyNanos) {
+            chunkSize = Math.max(minChunkSize, chunkSize / 2);
+        } else {
+            chunkSize = Math.min(maxChunkSize, chunkSize + Math.max(1, chunkSize / 10));
+        }
+    }
+
+    private void pause(long elapsedNanos) {
+        long pauseNanos = (long) (elapsedNanos * pauseRatio);
+        if (pauseNanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(pauseNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
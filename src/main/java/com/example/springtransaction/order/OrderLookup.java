@@ -0,0 +1,31 @@
+package com.example.springtransaction.order;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * orders, orders_archive 테이블을 구분하지 않는 주문 조회
+ * 대부분의 조회는 최근 주문이므로 orders 를 먼저 읽고, 없을 때만 보관 테이블을 읽는다.
+ *
+ * 하나의 읽기 트랜잭션에서 두 테이블을 읽는다.
+ * OrderArchiver 는 옮기는 주문을 같은 트랜잭션에서 insert, delete 하므로 커밋된 결과만 읽으면 어느 한쪽에서는 찾을 수 있다.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderLookup {
+
+    private final OrderRepository orderRepository;
+    private final OrderArchiveRepository orderArchiveRepository;
+
+    @Transactional(readOnly = true)
+    public Optional<Order> findById(Long id) {
+        Optional<Order> order = orderRepository.findById(id);
+        if (order.isPresent()) {
+            return order;
+        }
+        return orderArchiveRepository.findById(id).map(OrderArchive::toOrder);
+    }
+}
@@ -0,0 +1,364 @@
+package com.example.springtransaction.order;
+
+import com.example.springtransaction.outbox.Outbox;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+
+/**
+ * 단계별 주문 처리 (OrderService.order 의 비동기 버전)
+ * validation -> payment -> persistence -> settlement 단계가 각자의 스레드에서 실행되고, 단계 사이는 SpscRingBuffer 로 넘긴다.
+ * - validation : username 확인
+ * - payment : 결제 결과 결정. 예외는 저장하지 않고 실패 -> 롤백된 것과 같이 주문 데이터가 남지 않는다.
+ * - persistence : 여러 주문을 최대 batch-size 건까지 하나의 트랜잭션으로 저장한다. payStatus 를 미리 정했으므로 update 가 없다.
+ *                 완료된 주문의 outbox 이벤트도 같은 트랜잭션에서 저장한다.
+ * - settlement : 커밋된 주문의 결과를 알린다. 상태별 카운터는 persistence 트랜잭션이 커밋될 때 반영된다.
+ *
+ * 호출한 쪽은 CompletableFuture 로 결과를 받는다.
+ * 입구가 submit-timeout 동안 가득 차 있거나 종료된 뒤에 넣은 주문은 IllegalStateException 으로 실패한다.
+ * 정상 : 완료 상태로 커밋, 주문을 반환
+ * 예외 : RuntimeException("시스템 예외"), 주문 데이터 없음
+ * 잔고부족 : 대기 상태로 커밋, NotEnoughMoneyException("잔고가 부족합니다.")
+ *
+ * 묶음 트랜잭션이 실패하면 MemberJoinBatcher 와 같이 절반으로 나누어 다시 시도한다.
+ *
+ * 단계에서 예상하지 못한 RuntimeException 이 나면 그 단계가 처리중이던(아직 넘기지 않은) 주문을 실패로 알리고 계속 처리한다.
+ *
+ * 단계 스레드는 입력이 없으면 잠깐 바쁘게 기다린 뒤 잠들고, 앞 단계가 넘겨줄 때 깨운다.
+ * 깨우는 신호를 놓쳐도 MAX_PARK 마다 다시 확인한다.
+ * order.pipeline.enabled=true 일 때만 동작한다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "order.pipeline.enabled", havingValue = "true")
+public class OrderPipeline {
+
+    private static final int SPINS = 100;
+    private static final int YIELDS = 10;
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final OrderRepository orderRepository;
+    private final OrderStatusCounters orderStatusCounters;
+    private final Outbox outbox;
+    private final TransactionTemplate txTemplate;
+    private final int batchSize;
+    private final long submitTimeoutMillis;
+
+    // 주문은 여러 스레드가 넣으므로 입구만 BlockingQueue 를 사용한다.
+    private final BlockingQueue<Ticket> submitted;
+    private final SpscRingBuffer<Ticket> validated;
+    private final SpscRingBuffer<Ticket> paid;
+    private final SpscRingBuffer<Ticket> persisted;
+
+    private final List<Stage> stages = new ArrayList<>();
+    private Stage validation;
+    private Stage payment;
+    private Stage persistence;
+    private Stage settlement;
+    private final AtomicLong splitCount = new AtomicLong();
+    private volatile boolean running;
+
+    public OrderPipeline(OrderRepository orderRepository,
+                         OrderStatusCounters orderStatusCounters,
+                         Outbox outbox,
+                         PlatformTransactionManager txManager,
+                         @Value("${order.pipeline.ring-size:1024}") int ringSize,
+                         @Value("${order.pipeline.batch-size:100}") int batchSize,
+                         @Value("${order.pipeline.submit-timeout-millis:1000}") long submitTimeoutMillis) {
+        this.orderRepository = orderRepository;
+        this.orderStatusCounters = orderStatusCounters;
+        this.outbox = outbox;
+        this.txTemplate = new TransactionTemplate(txManager);
+        this.batchSize = batchSize;
+        this.submitTimeoutMillis = submitTimeoutMillis;
+        this.submitted = new ArrayBlockingQueue<>(ringSize);
+        this.validated = new SpscRingBuffer<>(ringSize);
+        this.paid = new SpscRingBuffer<>(ringSize);
+        this.persisted = new SpscRingBuffer<>(ringSize);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        validation = stage("validation", () -> !running, submitted::isEmpty, this::validate);
+        payment = stage("payment", validation::isFinished, validated::isEmpty, this::pay);
+        persistence = stage("persistence", payment::isFinished, paid::isEmpty, this::persist);
+        settlement = stage("settlement", persistence::isFinished, persisted::isEmpty, this::settle);
+        // 단계끼리 서로 깨우므로 모든 단계를 만든 뒤에 시작한다.
+        stages.forEach(stage -> stage.thread.start());
+    }
+
+    /**
+     * 이미 받은 주문은 모두 처리하고 종료한다.
+     * 종료와 동시에 들어와서 처리되지 못한 주문은 실패로 알린다.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Stage stage : stages) {
+            stage.wake();
+            stage.thread.join();
+        }
+        Ticket ticket;
+        while ((ticket = submitted.poll()) != null) {
+            ticket.result.completeExceptionally(stopped());
+        }
+    }
+
+    public CompletableFuture<Order> submit(Order order) {
+        Ticket ticket = new Ticket(order);
+        if (!running) {
+            ticket.result.completeExceptionally(stopped());
+            return ticket.result;
+        }
+        try {
+            // 가득 차면 호출한 스레드가 기다린다. (back pressure)
+            if (!submitted.offer(ticket, submitTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                ticket.result.completeExceptionally(new IllegalStateException("OrderPipeline 이 가득 찼습니다."));
+                return ticket.result;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            ticket.result.completeExceptionally(e);
+            return ticket.result;
+        }
+        // 넣는 사이에 종료됐으면 validation 단계가 이미 끝났을 수 있다. 아직 남아있으면 직접 꺼내서 실패시킨다.
+        if (!running && submitted.remove(ticket)) {
+            ticket.result.completeExceptionally(stopped());
+            return ticket.result;
+        }
+        validation.wake();
+        return ticket.result;
+    }
+
+    /**
+     * 묶음 저장이 실패해서 나누어 다시 시도한 횟수
+     */
+    public long getSplitCount() {
+        return splitCount.get();
+    }
+
+    private static IllegalStateException stopped() {
+        return new IllegalStateException("OrderPipeline 이 종료되었습니다.");
+    }
+
+    private boolean validate(List<Ticket> inFlight) {
+        Ticket ticket = submitted.poll();
+        if (ticket == null) {
+            return false;
+        }
+        take(inFlight, ticket);
+        Order order = ticket.order;
+        if (order.getUsername() == null) {
+            ticket.result.completeExceptionally(new IllegalArgumentException("username 이 없습니다."));
+            return true;
+        }
+        if (order.getId() != null) {
+            ticket.result.completeExceptionally(new IllegalArgumentException("새 주문이 아닙니다. id=" + order.getId()));
+            return true;
+        }
+        publish(validated, ticket);
+        payment.wake();
+        return true;
+    }
+
+    private boolean pay(List<Ticket> inFlight) {
+        Ticket ticket = validated.poll();
+        if (ticket == null) {
+            return false;
+        }
+        take(inFlight, ticket);
+        PayResult payResult = PayResult.of(ticket.order.getUsername());
+        if (payResult == PayResult.FAILED) {
+            ticket.result.completeExceptionally(new RuntimeException("시스템 예외"));
+            return true;
+        }
+        ticket.payResult = payResult;
+        ticket.order.setPayStatus(ticket.payResult.getPayStatus());
+        publish(paid, ticket);
+        persistence.wake();
+        return true;
+    }
+
+    private boolean persist(List<Ticket> inFlight) {
+        if (paid.drainTo(inFlight, batchSize) == 0) {
+            return false;
+        }
+        inFlight.forEach(ticket -> ticket.handedOff = false);
+        commit(inFlight);
+        settlement.wake();
+        return true;
+    }
+
+    private void commit(List<Ticket> tickets) {
+        try {
+            txTemplate.executeWithoutResult(status -> tickets.forEach(this::save));
+            tickets.forEach(ticket -> publish(persisted, ticket));
+        } catch (RuntimeException e) {
+            // 롤백 후 재시도할 때 이전 시도의 id 가 남지 않도록 지운다.
+            tickets.forEach(ticket -> ticket.order.setId(null));
+            if (tickets.size() == 1) {
+                log.info("주문 저장 실패 username={}", tickets.get(0).order.getUsername());
+                tickets.get(0).result.completeExceptionally(e);
+                return;
+            }
+            log.info("묶음 저장 실패, 나누어서 재시도 size={}", tickets.size());
+            splitCount.incrementAndGet();
+            int mid = tickets.size() / 2;
+            commit(tickets.subList(0, mid));
+            commit(tickets.subList(mid, tickets.size()));
+        }
+    }
+
+    private void save(Ticket ticket) {
+        orderRepository.save(ticket.order);
+        orderStatusCounters.incrementAfterCommit(ticket.order);
+        if (ticket.payResult == PayResult.COMPLETED) {
+            OrderService.publishCompleted(outbox, ticket.order);
+        }
+    }
+
+    private boolean settle(List<Ticket> inFlight) {
+        Ticket ticket = persisted.poll();
+        if (ticket == null) {
+            return false;
+        }
+        take(inFlight, ticket);
+        if (ticket.payResult == PayResult.PENDING) {
+            ticket.result.completeExceptionally(new NotEnoughMoneyException("잔고가 부족합니다."));
+        } else {
+            ticket.result.complete(ticket.order);
+        }
+        return true;
+    }
+
+    /**
+     * 다음 단계가 밀려서 링이 가득 차면 빈 자리가 생길 때까지 기다린다.
+     * 다음 단계는 앞 단계를 깨우지 않으므로 잠드는 시간을 MAX_PARK 까지 두 배씩 늘려가며 다시 확인한다.
+     */
+    private static void publish(SpscRingBuffer<Ticket> ring, Ticket ticket) {
+        ticket.handedOff = true;
+        int idle = 0;
+        while (!ring.offer(ticket)) {
+            if (idle < SPINS) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(Math.min(MAX_PARK_NANOS, 1_000L << Math.min(idle - SPINS, 10)));
+            }
+            idle++;
+        }
+    }
+
+    /**
+     * 단계가 꺼낸 주문을 처리중으로 표시한다. 단계가 실패하면 넘기지 않은 주문은 실패로 알린다.
+     */
+    private static void take(List<Ticket> inFlight, Ticket ticket) {
+        ticket.handedOff = false;
+        inFlight.add(ticket);
+    }
+
+    private Stage stage(String name, BooleanSupplier upstreamFinished, BooleanSupplier inputEmpty, Predicate<List<Ticket>> step) {
+        Stage stage = new Stage("order-pipeline-" + name, upstreamFinished, inputEmpty, step);
+        stages.add(stage);
+        return stage;
+    }
+
+    private static class Stage {
+        private final Thread thread;
+        private volatile boolean parked;
+        private volatile boolean finished;
+        private final List<Ticket> inFlight = new ArrayList<>(); // 단계 스레드만 사용한다.
+
+        private Stage(String name, BooleanSupplier upstreamFinished, BooleanSupplier inputEmpty, Predicate<List<Ticket>> step) {
+            this.thread = new Thread(() -> {
+                try {
+                    int idle = 0;
+                    // 앞 단계가 끝난 뒤에도 남은 입력은 모두 처리한다.
+                    while (!(upstreamFinished.getAsBoolean() && inputEmpty.getAsBoolean())) {
+                        if (run(name, step)) {
+                            idle = 0;
+                        } else {
+                            idle = Math.min(idle + 1, SPINS + YIELDS + 1);
+                            idle(idle, upstreamFinished, inputEmpty);
+                        }
+                    }
+                } finally {
+                    finished = true;
+                }
+            }, name);
+            this.thread.setDaemon(true);
+        }
+
+        /**
+         * 한 번 처리한다. 예외가 나도 단계 스레드는 계속 실행되고, 다음 단계로 넘기지 못한 주문만 실패한다.
+         */
+        private boolean run(String name, Predicate<List<Ticket>> step) {
+            try {
+                return step.test(inFlight);
+            } catch (RuntimeException e) {
+                log.error("{} 처리 실패, 처리중인 주문을 실패로 알린다. size={}", name, inFlight.size(), e);
+                for (Ticket ticket : inFlight) {
+                    if (!ticket.handedOff) {
+                        ticket.result.completeExceptionally(e);
+                    }
+                }
+                return true;
+            } finally {
+                inFlight.clear();
+            }
+        }
+
+        // 잠깐은 바쁘게 기다리고, 그래도 없으면 앞 단계가 깨울 때까지 잠든다.
+        private void idle(int idle, BooleanSupplier upstreamFinished, BooleanSupplier inputEmpty) {
+            if (idle <= SPINS) {
+                Thread.onSpinWait();
+            } else if (idle <= SPINS + YIELDS) {
+                Thread.yield();
+            } else {
+                parked = true;
+                // parked 를 표시한 뒤 다시 확인해야 그 사이에 넘어온 입력을 놓치지 않는다.
+                if (inputEmpty.getAsBoolean() && !upstreamFinished.getAsBoolean()) {
+                    LockSupport.parkNanos(this, MAX_PARK_NANOS);
+                }
+                parked = false;
+            }
+        }
+
+        private void wake() {
+            if (parked) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        private boolean isFinished() {
+            return finished;
+        }
+    }
+
+    private static class Ticket {
+        private final Order order;
+        private final CompletableFuture<Order> result = new CompletableFuture<>();
+        private PayResult payResult;
+        private boolean handedOff; // 처리중인 단계가 다음 단계로 넘겼는지, 그 단계 스레드만 쓰고 읽는다.
+
+        private Ticket(Order order) {
+            this.order = order;
+        }
+    }
+}
@@ -1,7 +1,14 @@
 package com.example.springtransaction.order;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
 
 // 스프링 데이터 JPA 사용
 public interface OrderRepository extends JpaRepository<Order, Long> {
+
+    // [payStatus, count]
+    @Query("select o.payStatus, count(o) from Order o group by o.payStatus")
+    List<Object[]> countByPayStatus();
 }
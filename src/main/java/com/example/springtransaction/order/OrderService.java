@@ -1,9 +1,12 @@
 package com.example.springtransaction.order;
 
-import lombok.RequiredArgsConstructor;
+import com.example.springtransaction.bulkhead.Bulkhead;
+import com.example.springtransaction.outbox.Outbox;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * username에 따른 처리 프로세스
@@ -12,31 +15,90 @@ import org.springframework.transaction.annotation.Transactional;
  * 잔고부족 : payStatus를 '대기' 상태로 처리한다.
  *           NotEnoughMoneyException("잔고가 부족합니다") 체크 예외가 발생한다.
  *           잔고 부족은 payStatus 를 대기 상태로 두고, 체크 예외가 발생하지만 order 데이터는 커밋되기를 기대한다!!
+ * 완료된 주문은 같은 트랜잭션에서 OrderCompleted 이벤트를 outbox 에 저장한다.
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class OrderService {
 
     private final OrderRepository orderRepository;
+    private final OrderStatusCounters orderStatusCounters;
+    private final Outbox outbox;
+    private final TransactionTemplate txTemplate;
 
+    public OrderService(OrderRepository orderRepository,
+                        OrderStatusCounters orderStatusCounters,
+                        Outbox outbox,
+                        PlatformTransactionManager txManager) {
+        this.orderRepository = orderRepository;
+        this.orderStatusCounters = orderStatusCounters;
+        this.outbox = outbox;
+        this.txTemplate = new TransactionTemplate(txManager);
+    }
+
+    @Bulkhead("order")
     @Transactional
     public void order(Order order) throws NotEnoughMoneyException {
         log.info("order 호출");
         orderRepository.save(order);
+        orderStatusCounters.incrementAfterCommit(order);
 
         log.info("결제 프로세스 진입");
-        if (order.getUsername().equals("예외")) {
+        PayResult result = PayResult.of(order.getUsername());
+        if (result == PayResult.FAILED) {
             log.info("시스템 예외 발생");
             throw new RuntimeException("시스템 예외");
-        } else if (order.getUsername().equals("잔고부족")) {
+        } else if (result == PayResult.PENDING) {
             log.info("잔고 부족 비지니스 예외 발생");
             order.setPayStatus("대기");
             throw new NotEnoughMoneyException("잔고가 부족합니다.");
         }else {
             log.info("정상 승인");
             order.setPayStatus("완료");
+            publishCompleted(order);
         }
         log.info("결제 프로세스 완료");
     }
+
+    /**
+     * 예외 대신 결과 값을 반환하는 주문
+     * 잔고 부족은 자주 발생하는 정상 비지니스 흐름이므로 예외 객체(스택 트레이스)를 만들지 않고,
+     * 롤백 규칙 판단 없이 결과 값으로 커밋, 롤백을 결정한다.
+     * COMPLETED, PENDING : 커밋
+     * FAILED : 트랜잭션 콜백에서 setRollbackOnly() -> 롤백
+     */
+    @Bulkhead("order")
+    public PayResult orderWithResult(Order order) {
+        return txTemplate.execute(status -> {
+            log.info("order 호출");
+            orderRepository.save(order);
+            orderStatusCounters.incrementAfterCommit(order);
+
+            log.info("결제 프로세스 진입");
+            PayResult result = PayResult.of(order.getUsername());
+            if (!result.isCommit()) {
+                log.info("결제 실패, 롤백");
+                status.setRollbackOnly();
+                return result;
+            }
+            order.setPayStatus(result.getPayStatus());
+            if (result == PayResult.COMPLETED) {
+                publishCompleted(order);
+            }
+            log.info("결제 프로세스 완료 result={}", result);
+            return result;
+        });
+    }
+
+    /**
+     * 완료된 주문 이벤트를 진행중인 트랜잭션의 outbox 에 저장한다.
+     */
+    static void publishCompleted(Outbox outbox, Order order) {
+        outbox.append("Order", order.getId(), "OrderCompleted",
+                Outbox.json("username", order.getUsername(), "payStatus", order.getPayStatus()));
+    }
+
+    private void publishCompleted(Order order) {
+        publishCompleted(outbox, order);
+    }
 }
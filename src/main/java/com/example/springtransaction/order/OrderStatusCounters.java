@@ -0,0 +1,154 @@
+package com.example.springtransaction.order;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * payStatus 별 주문 수
+ * 매번 orders 테이블 전체를 group by 하지 않고, 메모리의 카운터(LongAdder)로 O(1) 조회한다.
+ *
+ * - 시작할 때 DB에서 한 번 읽어서 초기화한다.
+ * - 트랜잭션 커밋 후(afterCommit)에만 증가시키기 때문에 롤백된 주문은 세지 않는다. (incrementAfterCommit)
+ * - 주기적으로 DB와 비교해서 차이가 있으면 보정한다.
+ *   커밋 중인 트랜잭션(beforeCommit ~ afterCompletion)이 있으면 DB 에는 보이지만 카운터에는 아직 반영되지 않았을 수 있으므로 보정하지 않는다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderStatusCounters {
+
+    private final OrderRepository orderRepository;
+    private final ConcurrentMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final AtomicInteger committing = new AtomicInteger();
+
+    @PostConstruct
+    public void init() {
+        loadFromDatabase().forEach((payStatus, count) -> counter(payStatus).add(count));
+        log.info("주문 상태 카운터 초기화 counts={}", counts());
+    }
+
+    public void increment(String payStatus) {
+        if (payStatus != null) {
+            counter(payStatus).increment();
+        }
+    }
+
+    /**
+     * 진행중인 트랜잭션이 커밋되면 주문의 payStatus 를 센다.
+     * 커밋 시점의 payStatus 를 읽기 때문에 저장 이후에 바뀐 상태도 반영된다.
+     */
+    public void incrementAfterCommit(Order order) {
+        afterCommit(() -> increment(order.getPayStatus()));
+    }
+
+    /**
+     * 진행중인 트랜잭션이 커밋되면 delta 만큼 반영한다. (주문 보관처럼 여러 건이 한번에 바뀔 때)
+     */
+    public void addAfterCommit(String payStatus, long delta) {
+        afterCommit(() -> add(payStatus, delta));
+    }
+
+    private void afterCommit(Runnable update) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean counted;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                committing.incrementAndGet();
+                counted = true;
+            }
+
+            @Override
+            public void afterCommit() {
+                update.run();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (counted) {
+                    committing.decrementAndGet();
+                }
+            }
+        });
+    }
+
+    /**
+     * 주문이 보관 테이블로 옮겨지는 등 여러 건이 한번에 바뀔 때 사용한다.
+     */
+    public void add(String payStatus, long delta) {
+        if (payStatus != null && delta != 0) {
+            counter(payStatus).add(delta);
+        }
+    }
+
+    public long count(String payStatus) {
+        LongAdder counter = counters.get(payStatus);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    public Map<String, Long> counts() {
+        Map<String, Long> counts = new HashMap<>();
+        counters.forEach((payStatus, counter) -> counts.put(payStatus, counter.sum()));
+        return counts;
+    }
+
+    /**
+     * DB와 비교해서 보정한다.
+     * 조회하는 동안 커밋된 주문이 있거나 커밋 중인 트랜잭션이 있으면 차이를 정확히 알 수 없으므로 이번 보정은 건너뛴다.
+     */
+    @Scheduled(initialDelayString = "${order.status-counters.reconcile-millis:60000}",
+            fixedDelayString = "${order.status-counters.reconcile-millis:60000}")
+    public void reconcile() {
+        if (committing.get() != 0) {
+            log.debug("커밋 중인 주문이 있어 보정을 건너뜁니다.");
+            return;
+        }
+        Map<String, Long> before = counts();
+        Map<String, Long> database = loadFromDatabase();
+        Map<String, Long> after = counts();
+        if (!before.equals(after) || committing.get() != 0) {
+            log.debug("보정 중에 주문이 커밋되어 보정을 건너뜁니다.");
+            return;
+        }
+
+        database.forEach((payStatus, count) -> {
+            long drift = count - after.getOrDefault(payStatus, 0L);
+            if (drift != 0) {
+                log.warn("주문 상태 카운터 보정 payStatus={}, drift={}", payStatus, drift);
+                counter(payStatus).add(drift);
+            }
+        });
+        after.forEach((payStatus, count) -> {
+            if (!database.containsKey(payStatus) && count != 0) {
+                log.warn("주문 상태 카운터 보정 payStatus={}, drift={}", payStatus, -count);
+                counter(payStatus).add(-count);
+            }
+        });
+    }
+
+    private Map<String, Long> loadFromDatabase() {
+        Map<String, Long> counts = new HashMap<>();
+        for (Object[] row : orderRepository.countByPayStatus()) {
+            if (row[0] != null) {
+                counts.put((String) row[0], (Long) row[1]);
+            }
+        }
+        return counts;
+    }
+
+    private LongAdder counter(String payStatus) {
+        return counters.computeIfAbsent(payStatus, key -> new LongAdder());
+    }
+}
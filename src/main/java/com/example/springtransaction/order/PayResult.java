@@ -0,0 +1,41 @@
+package com.example.springtransaction.order;
+
+/**
+ * 결제 처리 결과
+ * 예외를 던지지 않고 결과 값으로 커밋, 롤백을 결정한다.
+ */
+public enum PayResult {
+
+    COMPLETED("완료", true), // 정상 승인 -> 커밋
+    PENDING("대기", true),   // 잔고 부족, 주문은 대기 상태로 남긴다 -> 커밋
+    FAILED(null, false);     // 시스템 예외 -> 롤백
+
+    private final String payStatus;
+    private final boolean commit;
+
+    PayResult(String payStatus, boolean commit) {
+        this.payStatus = payStatus;
+        this.commit = commit;
+    }
+
+    /**
+     * 결제 규칙
+     * username 이 "예외" 면 시스템 예외, "잔고부족" 이면 잔고 부족, 나머지는 정상 승인
+     */
+    public static PayResult of(String username) {
+        if (username.equals("예외")) {
+            return FAILED;
+        } else if (username.equals("잔고부족")) {
+            return PENDING;
+        }
+        return COMPLETED;
+    }
+
+    public String getPayStatus() {
+        return payStatus;
+    }
+
+    public boolean isCommit() {
+        return commit;
+    }
+}
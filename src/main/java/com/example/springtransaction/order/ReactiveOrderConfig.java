@@ -0,0 +1,34 @@
+package com.example.springtransaction.order;
+
+import io.r2dbc.spi.ConnectionFactories;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+/**
+ * 논블로킹 주문 처리 구성 (order.reactive.enabled=true)
+ * ConnectionFactory, ReactiveTransactionManager 를 빈으로 등록하면 스프링 부트가 DataSource, JpaTransactionManager 를
+ * 자동 구성하지 않는다. -> 빈으로 등록하지 않고 리포지토리, 서비스 안에서만 사용한다.
+ *
+ * 주문은 별도의 데이터베이스(order.reactive.url)에 저장되므로
+ * OrderStatusCounters, OrderArchiver, outbox 에는 반영되지 않는다.
+ * R2DBC 커넥션 풀을 따로 열기 때문에 기본은 꺼져있다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "order.reactive.enabled", havingValue = "true")
+public class ReactiveOrderConfig {
+
+    @Bean
+    public ReactiveOrderRepository reactiveOrderRepository(@Value("${order.reactive.url}") String url) {
+        return new ReactiveOrderRepository(ConnectionFactories.get(url));
+    }
+
+    @Bean
+    public ReactiveOrderService reactiveOrderService(ReactiveOrderRepository reactiveOrderRepository) {
+        R2dbcTransactionManager txManager = new R2dbcTransactionManager(reactiveOrderRepository.getConnectionFactory());
+        return new ReactiveOrderService(reactiveOrderRepository, TransactionalOperator.create(txManager));
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.springtransaction.order;
+
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Row;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * R2DBC 주문 리포지토리
+ * JPA 와 같은 구조의 orders 테이블을 별도의 H2 데이터베이스(order.reactive.url)에 둔다.
+ */
+public class ReactiveOrderRepository implements DisposableBean {
+
+    private final ConnectionFactory connectionFactory;
+    private final DatabaseClient client;
+
+    public ReactiveOrderRepository(ConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+        this.client = DatabaseClient.create(connectionFactory);
+    }
+
+    // 시작할 때 한 번만 실행하므로 블로킹으로 기다린다.
+    @PostConstruct
+    public void init() {
+        createTable().block();
+    }
+
+    public Mono<Void> createTable() {
+        return client.sql("create table if not exists orders (" +
+                        "id bigint auto_increment primary key, username varchar(255), pay_status varchar(255))")
+                .then();
+    }
+
+    public Mono<Order> save(Order order) {
+        DatabaseClient.GenericExecuteSpec spec = client.sql("insert into orders (username, pay_status) values (:username, :payStatus)")
+                .bind("username", order.getUsername());
+        spec = order.getPayStatus() == null
+                ? spec.bindNull("payStatus", String.class)
+                : spec.bind("payStatus", order.getPayStatus());
+        return spec.filter(statement -> statement.returnGeneratedValues("id"))
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .map(id -> {
+                    order.setId(id);
+                    return order;
+                });
+    }
+
+    public Mono<Order> updatePayStatus(Order order) {
+        return client.sql("update orders set pay_status = :payStatus where id = :id")
+                .bind("payStatus", order.getPayStatus())
+                .bind("id", order.getId())
+                .fetch().rowsUpdated()
+                .thenReturn(order);
+    }
+
+    public Mono<Order> findById(Long id) {
+        return client.sql("select id, username, pay_status from orders where id = :id")
+                .bind("id", id)
+                .map(this::toOrder)
+                .one();
+    }
+
+    public ConnectionFactory getConnectionFactory() {
+        return connectionFactory;
+    }
+
+    @Override
+    public void destroy() {
+        if (connectionFactory instanceof Disposable) {
+            ((Disposable) connectionFactory).dispose();
+        }
+    }
+
+    private Order toOrder(Row row) {
+        Order order = new Order();
+        order.setId(row.get(0, Long.class));
+        order.setUsername(row.get(1, String.class));
+        order.setPayStatus(row.get(2, String.class));
+        return order;
+    }
+}
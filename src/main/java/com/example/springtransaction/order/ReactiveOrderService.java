@@ -0,0 +1,56 @@
+package com.example.springtransaction.order;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+/**
+ * OrderService 의 논블로킹 버전
+ * username에 따른 처리와 커밋, 롤백 규칙은 OrderService 와 같다.
+ * 예외 : RuntimeException("시스템 예외") 에러 신호 -> 롤백
+ * 잔고부족 : payStatus 를 '대기' 로 커밋한 뒤 NotEnoughMoneyException 에러 신호
+ *
+ * TransactionalOperator 는 에러 신호가 오면 롤백하기 때문에,
+ * 잔고 부족 에러 신호는 트랜잭션 범위 밖(커밋 이후)에서 만든다.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ReactiveOrderService {
+
+    private final ReactiveOrderRepository orderRepository;
+    private final TransactionalOperator txOperator;
+
+    public Mono<Order> order(Order order) {
+        return Mono.defer(() -> {
+                    log.info("order 호출");
+                    return orderRepository.save(order);
+                })
+                .flatMap(this::pay)
+                .as(txOperator::transactional)
+                .flatMap(this::notifyNotEnoughMoney);
+    }
+
+    private Mono<Order> pay(Order order) {
+        log.info("결제 프로세스 진입");
+        PayResult result = PayResult.of(order.getUsername());
+        if (result == PayResult.FAILED) {
+            log.info("시스템 예외 발생");
+            return Mono.error(new RuntimeException("시스템 예외"));
+        } else if (result == PayResult.PENDING) {
+            log.info("잔고 부족 비지니스 예외 발생");
+        } else {
+            log.info("정상 승인");
+        }
+        order.setPayStatus(result.getPayStatus());
+        return orderRepository.updatePayStatus(order);
+    }
+
+    private Mono<Order> notifyNotEnoughMoney(Order order) {
+        if ("대기".equals(order.getPayStatus())) {
+            return Mono.error(new NotEnoughMoneyException("잔고가 부족합니다."));
+        }
+        log.info("결제 프로세스 완료");
+        return Mono.just(order);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.springtransaction.order;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 단일 생산자, 단일 소비자 링 버퍼 (OrderPipeline 단계 사이의 전달)
+ * 슬롯 배열을 미리 할당하고 락 없이 생산자는 tail, 소비자는 head 만 증가시킨다.
+ * 한 단계에 스레드가 하나뿐이므로 생산자, 소비자가 각각 하나라는 조건이 지켜진다.
+ */
+class SpscRingBuffer<E> {
+
+    private final Object[] slots;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong(); // 다음에 읽을 위치 (소비자)
+    private final AtomicLong tail = new AtomicLong(); // 다음에 쓸 위치 (생산자)
+
+    SpscRingBuffer(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity 는 2의 거듭제곱이어야 합니다. capacity=" + capacity);
+        }
+        this.slots = new Object[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * 가득 차 있으면 false
+     */
+    boolean offer(E element) {
+        long t = tail.get();
+        if (t - head.get() == slots.length) {
+            return false;
+        }
+        slots[(int) (t & mask)] = element;
+        tail.lazySet(t + 1); // 슬롯에 쓴 뒤에 공개한다.
+        return true;
+    }
+
+    /**
+     * 비어 있으면 null
+     */
+    @SuppressWarnings("unchecked")
+    E poll() {
+        long h = head.get();
+        if (h == tail.get()) {
+            return null;
+        }
+        int index = (int) (h & mask);
+        E element = (E) slots[index];
+        slots[index] = null;
+        head.lazySet(h + 1);
+        return element;
+    }
+
+    /**
+     * 최대 max 건을 꺼내서 target 에 담는다. (persistence 단계의 묶음)
+     */
+    @SuppressWarnings("unchecked")
+    int drainTo(List<E> target, int max) {
+        long h = head.get();
+        int count = (int) Math.min(max, tail.get() - h);
+        for (int i = 0; i < count; i++) {
+            int index = (int) ((h + i) & mask);
+            target.add((E) slots[index]);
+            slots[index] = null;
+        }
+        head.lazySet(h + count);
+        return count;
+    }
+
+    boolean isEmpty() {
+        return head.get() == tail.get();
+    }
+
+    int size() {
+        return (int) (tail.get() - head.get());
+    }
+}
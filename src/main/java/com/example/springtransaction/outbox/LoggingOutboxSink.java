@@ -0,0 +1,22 @@
+package com.example.springtransaction.outbox;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 기본 sink, 전달한 이벤트를 로그로 남긴다.
+ * 실제 브로커를 연결할 때는 OutboxSink 빈을 @Primary 로 등록한다.
+ */
+@Slf4j
+@Component
+public class LoggingOutboxSink implements OutboxSink {
+
+    @Override
+    public void publish(List<OutboxMessage> messages) {
+        for (OutboxMessage message : messages) {
+            log.debug("outbox 전달 {}", message);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.springtransaction.outbox;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+
+/**
+ * outbox 이벤트 저장
+ * 트랜잭션 안에서 메시지를 직접 보내면 트랜잭션이 길어지고, 커밋 후에 보내면 그 사이에 종료될 때 메시지를 잃는다.
+ * -> 이벤트를 같은 트랜잭션에서 outbox_event 테이블에 저장하고, 전달은 OutboxRelay 가 따로 한다.
+ *
+ * outbox.enabled=true 일 때만 저장한다. 전달(OutboxRelay)도 같은 설정으로 켜지므로, 전달하지 않는 이벤트가 쌓이지 않는다.
+ */
+@Component
+public class Outbox {
+
+    private final EntityManager em;
+    private final boolean enabled;
+
+    public Outbox(EntityManager em, @Value("${outbox.enabled:false}") boolean enabled) {
+        this.em = em;
+        this.enabled = enabled;
+    }
+
+    /**
+     * 진행중인 트랜잭션에 참여해서 저장한다. 트랜잭션이 없으면 예외가 발생한다.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(String aggregateType, Long aggregateId, String eventType, String payload) {
+        if (!enabled) {
+            return;
+        }
+        em.persist(new OutboxEvent(aggregateType, aggregateId, eventType, payload));
+    }
+
+    /**
+     * 문자열 값만 가지는 JSON 객체 ("key", value, "key", value ...)
+     */
+    public static String json(String... keyValues) {
+        StringBuilder json = new StringBuilder("{");
+        for (int i = 0; i < keyValues.length; i += 2) {
+            if (i > 0) {
+                json.append(',');
+            }
+            quote(json, keyValues[i]).append(':');
+            if (keyValues[i + 1] == null) {
+                json.append("null");
+            } else {
+                quote(json, keyValues[i + 1]);
+            }
+        }
+        return json.append('}').toString();
+    }
+
+    private static StringBuilder quote(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        return json.append('"');
+    }
+}
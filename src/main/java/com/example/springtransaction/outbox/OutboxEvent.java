@@ -0,0 +1,40 @@
+package com.example.springtransaction.outbox;
+
+import lombok.Getter;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * 아직 전달하지 않은 이벤트 (transactional outbox)
+ * 주문, 회원과 같은 트랜잭션에서 저장되므로 함께 커밋되거나 함께 롤백된다.
+ * OutboxRelay 가 전달한 뒤에 삭제한다.
+ */
+@Entity
+@Table(name = "outbox_event")
+@Getter
+public class OutboxEvent {
+
+    @Id @GeneratedValue
+    private Long id;
+
+    private String aggregateType; // Order, Member
+    private Long aggregateId;
+    private String eventType;     // OrderCompleted, MemberJoined
+    private String payload;       // JSON
+    private LocalDateTime createdAt;
+
+    protected OutboxEvent() {
+    }
+
+    OutboxEvent(String aggregateType, Long aggregateId, String eventType, String payload) {
+        this.aggregateType = aggregateType;
+        this.aggregateId = aggregateId;
+        this.eventType = eventType;
+        this.payload = payload;
+        this.createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.springtransaction.outbox;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * OutboxSink 로 전달하는 이벤트
+ * id 는 이벤트마다 유일하므로 받는 쪽은 id 로 중복 전달을 걸러낼 수 있다. (at-least-once)
+ */
+@Getter
+public class OutboxMessage {
+
+    private final long id;
+    private final String aggregateType;
+    private final long aggregateId;
+    private final String eventType;
+    private final String payload;
+    private final LocalDateTime createdAt;
+
+    public OutboxMessage(long id, String aggregateType, long aggregateId, String eventType, String payload, LocalDateTime createdAt) {
+        this.id = id;
+        this.aggregateType = aggregateType;
+        this.aggregateId = aggregateId;
+        this.eventType = eventType;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return "OutboxMessage{id=" + id + ", " + aggregateType + "#" + aggregateId + ", " + eventType + ", " + payload + '}';
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.springtransaction.outbox;
+
+import lombok.Getter;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * relay 별 전달 위치
+ * 마지막으로 전달한 이벤트 id 와 전달한 이벤트 수를 전달과 같은 트랜잭션에서 갱신한다. -> 재시작해도 유지된다.
+ * 테이블만 JPA 로 만들고 갱신은 OutboxRelay 가 SQL 로 한다.
+ */
+@Entity
+@Table(name = "outbox_offset")
+@Getter
+public class OutboxOffset {
+
+    @Id
+    private String relayName;
+
+    private long lastEventId;
+    private long delivered;
+    private LocalDateTime updatedAt;
+
+    protected OutboxOffset() {
+    }
+}
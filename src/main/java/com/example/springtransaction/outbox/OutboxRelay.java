@@ -0,0 +1,171 @@
+package com.example.springtransaction.outbox;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * outbox 이벤트 전달
+ * 한 트랜잭션에서 최대 batch-size 건을 잠그고(FOR UPDATE SKIP LOCKED) sink 로 보낸 뒤 삭제하고 전달 위치를 갱신한다.
+ * - 다른 relay 가 잠근 이벤트는 건너뛰므로 relay 를 여러 개 실행해도 같은 이벤트를 동시에 보내지 않는다.
+ * - sink 가 실패하면 롤백되어 이벤트가 남고 다음 polling 에서 다시 보낸다. -> at-least-once
+ * - 한 relay 안에서는 id 순서로 보내지만 relay 가 여러 개면 순서는 보장하지 않는다.
+ *
+ * 묶음이 가득 차면 쉬지 않고 다음 묶음을 보내고, 비어 있으면 poll-interval 만큼 쉰다.
+ * outbox.enabled=true 일 때만 등록되고, OutboxRelayScheduler 가 poll-interval 마다 호출한다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "outbox.enabled", havingValue = "true")
+public class OutboxRelay {
+
+    private static final String CLAIM_SQL = "select id, aggregate_type, aggregate_id, event_type, payload, created_at " +
+            "from outbox_event order by id limit ? for update skip locked";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate txTemplate;
+    private final OutboxSink sink;
+    private final String relayName;
+    private final int batchSize;
+
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final AtomicLong lastBatchNanos = new AtomicLong();
+
+    public OutboxRelay(JdbcTemplate jdbcTemplate,
+                       PlatformTransactionManager txManager,
+                       OutboxSink sink,
+                       @Value("${outbox.relay.name:default}") String relayName,
+                       @Value("${outbox.relay.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.txTemplate = new TransactionTemplate(txManager);
+        this.txTemplate.setName("OutboxRelay.relay");
+        this.sink = sink;
+        this.relayName = relayName;
+        this.batchSize = batchSize;
+    }
+
+    // 전달 위치 행을 미리 만들어두면 전달할 때는 update 만 하면 된다.
+    @PostConstruct
+    public void init() {
+        jdbcTemplate.update("insert into outbox_offset (relay_name, last_event_id, delivered, updated_at) " +
+                        "select ?, 0, 0, ? where not exists (select 1 from outbox_offset where relay_name = ?)",
+                relayName, Timestamp.valueOf(LocalDateTime.now()), relayName);
+    }
+
+    /**
+     * 남은 이벤트가 batch-size 보다 적어질 때까지 보낸다.
+     * sink 가 실패하면 멈추고 다음 polling 에서 다시 시도한다.
+     *
+     * @return 전달한 이벤트 수
+     */
+    public long relayUntilEmpty() {
+        long total = 0;
+        try {
+            int count;
+            do {
+                count = relayOnce();
+                total += count;
+            } while (count == batchSize && !Thread.currentThread().isInterrupted());
+        } catch (RuntimeException e) {
+            failures.increment();
+            log.warn("outbox 전달 실패, 다음 polling 에서 다시 시도합니다. relay={}", relayName, e);
+        }
+        return total;
+    }
+
+    /**
+     * 한 묶음을 보낸다.
+     *
+     * @return 전달한 이벤트 수
+     */
+    public int relayOnce() {
+        long start = System.nanoTime();
+        int count = txTemplate.execute(status -> {
+            List<OutboxMessage> batch = jdbcTemplate.query(CLAIM_SQL, this::toMessage, batchSize);
+            if (batch.isEmpty()) {
+                return 0;
+            }
+            sink.publish(batch);
+
+            jdbcTemplate.batchUpdate("delete from outbox_event where id = ?", batch, batch.size(),
+                    (ps, message) -> ps.setLong(1, message.getId()));
+            jdbcTemplate.update("update outbox_offset set last_event_id = greatest(last_event_id, ?), " +
+                            "delivered = delivered + ?, updated_at = ? where relay_name = ?",
+                    batch.get(batch.size() - 1).getId(), batch.size(), Timestamp.valueOf(LocalDateTime.now()), relayName);
+            return batch.size();
+        });
+        if (count > 0) {
+            delivered.add(count);
+            lastBatchNanos.set(System.nanoTime() - start);
+        }
+        return count;
+    }
+
+    /**
+     * 전달 지연 지표
+     * 남은 이벤트 수와 가장 오래된 이벤트의 나이는 outbox 테이블에서, 전달 위치는 outbox_offset 에서 읽는다.
+     */
+    public OutboxLag lag() {
+        return jdbcTemplate.queryForObject(
+                "select (select count(*) from outbox_event) pending, (select min(created_at) from outbox_event) oldest, " +
+                        "last_event_id, delivered from outbox_offset where relay_name = ?",
+                (rs, rowNum) -> {
+                    LocalDateTime oldest = rs.getObject("oldest", LocalDateTime.class);
+                    long ageMillis = oldest == null ? 0 : Math.max(0, Duration.between(oldest, LocalDateTime.now()).toMillis());
+                    return new OutboxLag(rs.getLong("pending"), ageMillis, rs.getLong("last_event_id"), rs.getLong("delivered"),
+                            delivered.sum(), failures.sum(), TimeUnit.NANOSECONDS.toMillis(lastBatchNanos.get()));
+                },
+                relayName);
+    }
+
+    private OutboxMessage toMessage(ResultSet rs, int rowNum) throws SQLException {
+        return new OutboxMessage(rs.getLong("id"), rs.getString("aggregate_type"), rs.getLong("aggregate_id"),
+                rs.getString("event_type"), rs.getString("payload"), rs.getObject("created_at", LocalDateTime.class));
+    }
+
+    @Getter
+    public static class OutboxLag {
+        private final long pending;                // 아직 전달하지 않은 이벤트 수 (모든 relay)
+        private final long oldestPendingAgeMillis; // 가장 오래 기다린 이벤트의 나이
+        private final long lastEventId;            // 이 relay 가 마지막으로 전달한 이벤트 id
+        private final long deliveredTotal;         // 이 relay 가 전달한 이벤트 수 (재시작해도 유지)
+        private final long deliveredSinceStart;
+        private final long failures;
+        private final long lastBatchMillis;
+
+        OutboxLag(long pending, long oldestPendingAgeMillis, long lastEventId, long deliveredTotal,
+                  long deliveredSinceStart, long failures, long lastBatchMillis) {
+            this.pending = pending;
+            this.oldestPendingAgeMillis = oldestPendingAgeMillis;
+            this.lastEventId = lastEventId;
+            this.deliveredTotal = deliveredTotal;
+            this.deliveredSinceStart = deliveredSinceStart;
+            this.failures = failures;
+            this.lastBatchMillis = lastBatchMillis;
+        }
+
+        @Override
+        public String toString() {
+            return "OutboxLag{pending=" + pending + ", oldestPendingAgeMillis=" + oldestPendingAgeMillis +
+                    ", lastEventId=" + lastEventId + ", deliveredTotal=" + deliveredTotal + ", failures=" + failures +
+                    ", lastBatchMillis=" + lastBatchMillis + '}';
+        }
+    }
+}
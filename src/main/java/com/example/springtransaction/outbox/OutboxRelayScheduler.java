@@ -0,0 +1,24 @@
+package com.example.springtransaction.outbox;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * poll-interval 마다 OutboxRelay 로 쌓인 이벤트를 전달한다.
+ * outbox.enabled=true 일 때만 스케줄이 등록된다. (꺼져 있으면 빈 polling 도 하지 않는다)
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "outbox.enabled", havingValue = "true")
+public class OutboxRelayScheduler {
+
+    private final OutboxRelay outboxRelay;
+
+    @Scheduled(initialDelayString = "${outbox.relay.poll-interval-millis:100}",
+            fixedDelayString = "${outbox.relay.poll-interval-millis:100}")
+    public void relay() {
+        outboxRelay.relayUntilEmpty();
+    }
+}
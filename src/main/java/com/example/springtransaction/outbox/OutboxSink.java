@@ -0,0 +1,12 @@
+package com.example.springtransaction.outbox;
+
+import java.util.List;
+
+/**
+ * outbox 이벤트를 받는 외부 시스템 (메시지 브로커 등)
+ * 예외를 던지면 묶음 전체가 전달되지 않은 것으로 보고 다음 polling 에서 다시 전달한다.
+ */
+public interface OutboxSink {
+
+    void publish(List<OutboxMessage> messages);
+}
@@ -0,0 +1,164 @@
+package com.example.springtransaction.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 영속성 컨텍스트 크기 관리
+ * 긴 트랜잭션에서 저장한 엔티티가 커밋 전까지 모두 영속 상태로 남으면 힙이 계속 늘어나고, 변경 감지 비용도 함께 커진다.
+ *
+ * 리포지토리 호출이 끝날 때마다(안전 지점) 현재 EntityManager 가 관리하는 엔티티 수를 확인한다.
+ * - flush-threshold 이상이면 flush 후 clear 한다. (읽기 전용 트랜잭션 제외)
+ * - 읽기 전용 트랜잭션이 read-only-warn-threshold 보다 많은 엔티티를 조회하면 경고 로그를 남긴다.
+ * - 트랜잭션별 최대 크기(peak)를 기록한다.
+ *
+ * clear 이후에는 이전에 받은 엔티티가 준영속 상태가 되어 변경 감지가 동작하지 않는다.
+ * 따라서 대량 저장처럼 저장한 엔티티를 다시 수정하지 않는 트랜잭션에서만 사용해야 한다. (jpa.governor.enabled=true)
+ *
+ * 트랜잭션 AOP(LOWEST_PRECEDENCE) 바깥에서 실행된다. -> 리포지토리 메서드의 트랜잭션 경계가 끝난 뒤가 안전 지점이다.
+ * 서비스 트랜잭션에 참여한 호출이면 서비스 트랜잭션 안에서 확인하고, 리포지토리가 혼자 시작한 트랜잭션은 이미 끝났으므로 확인하지 않는다.
+ */
+@Slf4j
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+@ConditionalOnProperty(name = "jpa.governor.enabled", havingValue = "true")
+public class PersistenceContextGovernor {
+
+    private final EntityManager em;
+    private final int flushThreshold;
+    private final int readOnlyWarnThreshold;
+
+    private final Object resourceKey = new Object();
+    private final AtomicInteger maxPeak = new AtomicInteger();
+    private final AtomicInteger readOnlyWarnCount = new AtomicInteger();
+    private volatile PersistenceContextStats lastStats;
+
+    public PersistenceContextGovernor(EntityManager em,
+                                      @Value("${jpa.governor.flush-threshold:1000}") int flushThreshold,
+                                      @Value("${jpa.governor.read-only-warn-threshold:10000}") int readOnlyWarnThreshold) {
+        this.em = em;
+        this.flushThreshold = flushThreshold;
+        this.readOnlyWarnThreshold = readOnlyWarnThreshold;
+    }
+
+    @Around("@within(org.springframework.stereotype.Repository) || this(org.springframework.data.repository.Repository)")
+    public Object checkpointAfterRepositoryCall(ProceedingJoinPoint joinPoint) throws Throwable {
+        Object result = joinPoint.proceed();
+        checkpoint();
+        return result;
+    }
+
+    /**
+     * 안전 지점에서 직접 호출할 수도 있다.
+     */
+    public void checkpoint() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return;
+        }
+        PersistenceContextStats stats = currentStats();
+        int managedEntities = managedEntityCount();
+        stats.record(managedEntities);
+
+        if (!stats.isReadOnly() && flushThreshold > 0 && managedEntities >= flushThreshold) {
+            log.info("영속성 컨텍스트 flush, clear managedEntities={}", managedEntities);
+            em.flush();
+            em.clear();
+            stats.cleared();
+        }
+    }
+
+    /**
+     * 현재 트랜잭션의 영속성 컨텍스트 최대 크기
+     */
+    public int currentPeak() {
+        PersistenceContextStats stats = (PersistenceContextStats) TransactionSynchronizationManager.getResource(resourceKey);
+        return stats == null ? 0 : stats.getPeak();
+    }
+
+    /**
+     * 마지막으로 완료된 트랜잭션의 통계
+     */
+    public PersistenceContextStats getLastStats() {
+        return lastStats;
+    }
+
+    public int getMaxPeak() {
+        return maxPeak.get();
+    }
+
+    /**
+     * read-only-warn-threshold 를 넘은 읽기 전용 트랜잭션 수
+     */
+    public int getReadOnlyWarnCount() {
+        return readOnlyWarnCount.get();
+    }
+
+    private int managedEntityCount() {
+        return em.unwrap(Session.class).getStatistics().getEntityCount();
+    }
+
+    private PersistenceContextStats currentStats() {
+        PersistenceContextStats stats = (PersistenceContextStats) TransactionSynchronizationManager.getResource(resourceKey);
+        if (stats == null) {
+            stats = new PersistenceContextStats(
+                    TransactionSynchronizationManager.getCurrentTransactionName(),
+                    TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+            TransactionSynchronizationManager.bindResource(resourceKey, stats);
+            TransactionSynchronizationManager.registerSynchronization(new StatsSynchronization(stats));
+        }
+        return stats;
+    }
+
+    private void complete(PersistenceContextStats stats) {
+        lastStats = stats;
+        maxPeak.accumulateAndGet(stats.getPeak(), Math::max);
+        if (stats.isReadOnly() && stats.getPeak() > readOnlyWarnThreshold) {
+            readOnlyWarnCount.incrementAndGet();
+            log.warn("읽기 전용 트랜잭션에서 너무 많은 엔티티를 조회했습니다. {}", stats);
+        } else {
+            log.debug("{}", stats);
+        }
+    }
+
+    /**
+     * REQUIRES_NEW 로 트랜잭션이 보류되면 통계도 함께 보류했다가 다시 연결한다.
+     */
+    private class StatsSynchronization implements TransactionSynchronization {
+
+        private final PersistenceContextStats stats;
+
+        private StatsSynchronization(PersistenceContextStats stats) {
+            this.stats = stats;
+        }
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(resourceKey);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(resourceKey, stats);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(resourceKey);
+            complete(stats);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.springtransaction.persistence;
+
+import lombok.Getter;
+
+/**
+ * 트랜잭션 하나에서 관찰한 영속성 컨텍스트 크기
+ */
+@Getter
+public class PersistenceContextStats {
+
+    private final String transactionName;
+    private final boolean readOnly;
+    private int peak;       // 영속성 컨텍스트가 관리한 엔티티 수의 최대값
+    private int clearCount; // 자동 flush, clear 횟수
+
+    public PersistenceContextStats(String transactionName, boolean readOnly) {
+        this.transactionName = transactionName;
+        this.readOnly = readOnly;
+    }
+
+    void record(int managedEntities) {
+        peak = Math.max(peak, managedEntities);
+    }
+
+    void cleared() {
+        clearCount++;
+    }
+
+    @Override
+    public String toString() {
+        return "PersistenceContextStats{" +
+                "transactionName='" + transactionName + '\'' +
+                ", readOnly=" + readOnly +
+                ", peak=" + peak +
+                ", clearCount=" + clearCount +
+                '}';
+    }
+}
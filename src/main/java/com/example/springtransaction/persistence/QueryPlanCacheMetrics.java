@@ -0,0 +1,54 @@
+package com.example.springtransaction.persistence;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Hibernate 쿼리 플랜 캐시 통계
+ * JPQL -> SQL 변환 결과(HQLQueryPlan)를 캐시에서 찾은 비율이다. NamedQuery 는 시작할 때 미리 변환된다.
+ *
+ * hibernate.generate_statistics=true 일 때만 값이 기록된다.
+ * 통계 수집 자체의 비용이 있으므로 기본은 꺼져 있고, 측정할 때만 켠다.
+ * 꺼져 있으면 횟수는 모두 0 이므로 비율은 0 이 아니라 NaN 을 반환한다. (isEnabled 로 먼저 확인)
+ *
+ * JDBC statement 캐시 적중률은 제공하지 않는다.
+ * HikariCP 는 statement 캐시가 없고, H2 는 세션마다 파싱한 statement 를 SQL 문자열로 캐시(QUERY_CACHE_SIZE)하지만
+ * 적중 횟수를 JDBC 나 INFORMATION_SCHEMA 로 노출하지 않는다. prepareStatement 횟수만 볼 수 있다.
+ */
+@Component
+public class QueryPlanCacheMetrics {
+
+    private final Statistics statistics;
+
+    public QueryPlanCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    public boolean isEnabled() {
+        return statistics.isStatisticsEnabled();
+    }
+
+    public long getPlanCacheHits() {
+        return statistics.getQueryPlanCacheHitCount();
+    }
+
+    public long getPlanCacheMisses() {
+        return statistics.getQueryPlanCacheMissCount();
+    }
+
+    public double getPlanCacheHitRatio() {
+        if (!isEnabled()) {
+            return Double.NaN;
+        }
+        long total = getPlanCacheHits() + getPlanCacheMisses();
+        return total == 0 ? 0 : (double) getPlanCacheHits() / total;
+    }
+
+    // JDBC PreparedStatement 를 만든 횟수
+    public long getPrepareStatementCount() {
+        return statistics.getPrepareStatementCount();
+    }
+}
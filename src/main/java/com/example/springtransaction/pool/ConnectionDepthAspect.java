@@ -0,0 +1,44 @@
+package com.example.springtransaction.pool;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+/**
+ * 서비스 메서드별 커넥션 중첩 깊이
+ * 트랜잭션 AOP 바깥에서 실행되어야 트랜잭션이 잡는 커넥션까지 포함된다. (BulkheadAspect 다음)
+ * 서비스가 다른 서비스를 호출하면 가장 바깥 메서드에만 기록한다.
+ * 커넥션은 메서드를 실행한 스레드에서 열고 닫는다고 가정한다. (ConnectionDepthDataSource 가 스레드별로 센다)
+ * 커넥션을 다른 스레드에 넘겨서 닫는 코드(비동기 콜백 등)는 깊이가 맞지 않는다.
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@RequiredArgsConstructor
+public class ConnectionDepthAspect {
+
+    private static final ThreadLocal<Boolean> inService = new ThreadLocal<>();
+
+    private final PoolUsage poolUsage;
+
+    @Around("@within(org.springframework.stereotype.Service)")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (inService.get() != null) {
+            return joinPoint.proceed();
+        }
+        inService.set(Boolean.TRUE);
+        int outerPeak = PoolUsage.resetPeakDepth();
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            String method = AopUtils.getTargetClass(joinPoint.getTarget()).getSimpleName() + "." + joinPoint.getSignature().getName();
+            poolUsage.recordMethod(method, System.nanoTime() - start, PoolUsage.peakDepth());
+            PoolUsage.restorePeakDepth(outerPeak);
+            inService.remove();
+        }
+    }
+}
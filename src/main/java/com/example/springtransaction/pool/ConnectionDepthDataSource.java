@@ -0,0 +1,54 @@
+package com.example.springtransaction.pool;
+
+import com.example.springtransaction.jdbc.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * 스레드가 동시에 잡고 있는 커넥션 수를 PoolUsage 에 기록하는 DataSource
+ * getConnection 에서 1 증가, Connection.close 에서 1 감소한다.
+ * 깊이는 스레드별(ThreadLocal)로 세므로 커넥션을 연 스레드에서 닫는다고 가정한다.
+ * 다른 스레드에서 닫으면 연 스레드의 깊이는 줄지 않고 닫은 스레드의 깊이가 줄어든다.
+ */
+public class ConnectionDepthDataSource extends DelegatingDataSource {
+
+    public ConnectionDepthDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return track(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return track(super.getConnection(username, password));
+    }
+
+    private Connection track(Connection target) {
+        PoolUsage.connectionOpened();
+        return new DepthConnection(target).proxy();
+    }
+
+    private static class DepthConnection extends ConnectionProxy {
+
+        private boolean closed;
+
+        private DepthConnection(Connection target) {
+            super(target);
+        }
+
+        @Override
+        protected void beforeInvoke(Method method, Object[] args) {
+            if (method.getName().equals("close") && !closed) {
+                closed = true;
+                PoolUsage.connectionClosed();
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.springtransaction.pool;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * 커넥션 풀 크기 조절 구성 (pool.controller.enabled=true)
+ * - Hikari 가 시작되기 전에 획득 대기 시간 기록기(PoolMetricsTrackerFactory)를 설정한다.
+ * - DataSource 를 ConnectionDepthDataSource 로 감싸서 스레드별 커넥션 중첩 깊이를 센다.
+ * - pool.controller.mode=simulate 이면 풀 크기를 바꾸지 않고 추천 값만 기록한다.
+ *
+ * 다른 구성(tx.monitor)이 DataSource 를 감쌀 수 있으므로 HikariDataSource 는 unwrap 으로 꺼낸다.
+ * 감싸는 DataSource 는 모두 DelegatingDataSource 이므로 unwrap 이 안쪽까지 전달된다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "pool.controller.enabled", havingValue = "true")
+public class PoolControllerConfig {
+
+    @Bean
+    public PoolUsage poolUsage() {
+        return new PoolUsage();
+    }
+
+    @Bean
+    public static BeanPostProcessor poolUsageDataSourcePostProcessor(ObjectProvider<PoolUsage> poolUsage) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource) {
+                    ((HikariDataSource) bean).setMetricsTrackerFactory(new PoolMetricsTrackerFactory(poolUsage.getObject()));
+                }
+                return bean;
+            }
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof ConnectionDepthDataSource)) {
+                    return new ConnectionDepthDataSource((DataSource) bean);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public ConnectionDepthAspect connectionDepthAspect(PoolUsage poolUsage) {
+        return new ConnectionDepthAspect(poolUsage);
+    }
+
+    @Bean(destroyMethod = "close")
+    public PoolSizeController poolSizeController(DataSource dataSource,
+                                                 PoolUsage poolUsage,
+                                                 @Value("${pool.controller.mode:adaptive}") String mode,
+                                                 @Value("${pool.controller.min-size:2}") int minSize,
+                                                 @Value("${pool.controller.max-size:50}") int maxSize,
+                                                 @Value("${pool.controller.step:2}") int step,
+                                                 @Value("${pool.controller.target-wait-millis:5}") long targetWaitMillis,
+                                                 @Value("${pool.controller.shrink-utilization:0.5}") double shrinkUtilization,
+                                                 @Value("${pool.controller.shrink-after:6}") int shrinkAfter,
+                                                 @Value("${pool.controller.interval-millis:5000}") long intervalMillis,
+                                                 // 기본은 bulkhead 합계 (서비스 메서드를 동시에 실행할 수 있는 최대 스레드 수)
+                                                 @Value("${pool.controller.max-concurrent:#{${bulkhead.order.max-concurrent:8} + ${bulkhead.member-join.max-concurrent:4}}}") int maxConcurrent,
+                                                 @Value("${pool.controller.headroom:0.2}") double headroom) {
+        HikariDataSource hikariDataSource;
+        try {
+            hikariDataSource = dataSource.unwrap(HikariDataSource.class);
+        } catch (SQLException e) {
+            throw new IllegalStateException("HikariDataSource 가 없습니다. dataSource=" + dataSource, e);
+        }
+        PoolSizeController.Settings settings = new PoolSizeController.Settings()
+                .minSize(minSize)
+                .maxSize(maxSize)
+                .step(step)
+                .targetWaitMillis(targetWaitMillis)
+                .shrinkUtilization(shrinkUtilization)
+                .shrinkAfter(shrinkAfter)
+                .intervalMillis(intervalMillis)
+                .simulate("simulate".equals(mode))
+                .maxConcurrent(maxConcurrent);
+        PoolSizeController controller = new PoolSizeController(hikariDataSource, poolUsage, new PoolSizeRecommender(headroom), settings);
+        controller.start();
+        return controller;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.springtransaction.pool;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+/**
+ * Hikari 커넥션 획득 대기 시간을 PoolUsage 에 기록한다.
+ */
+public class PoolMetricsTrackerFactory implements MetricsTrackerFactory {
+
+    private final PoolUsage poolUsage;
+
+    public PoolMetricsTrackerFactory(PoolUsage poolUsage) {
+        this.poolUsage = poolUsage;
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                poolUsage.recordAcquire(elapsedAcquiredNanos);
+            }
+        };
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.springtransaction.pool;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hikari 풀 크기 조절
+ * interval 마다 커넥션 획득 대기 시간, 대기 스레드 수, 사용중인 커넥션 수를 보고 min-size ~ max-size 안에서 크기를 바꾼다.
+ * - 평균 획득 대기 시간이 target-wait 를 넘거나 대기 스레드가 있으면 step 만큼 늘린다.
+ * - 대기가 없고 사용중인 커넥션이 크기의 shrink-utilization 미만인 구간이 shrink-after 번 이어지면 하나 줄인다.
+ * 줄일 때는 교착 방지 최소 크기(max-concurrent * (최대 중첩 깊이 - 1) + 1) 아래로 내려가지 않는다.
+ * -> 모든 스레드가 첫 커넥션을 잡은 채 REQUIRES_NEW 의 두 번째 커넥션을 기다리는 상황을 막는다.
+ *
+ * 시뮬레이션 모드에서는 크기를 바꾸지 않고 추천 값(PoolSizeRecommender)만 기록한다.
+ */
+@Slf4j
+public class PoolSizeController implements AutoCloseable {
+
+    private final HikariDataSource dataSource;
+    private final PoolUsage poolUsage;
+    private final PoolSizeRecommender recommender;
+    private final Settings settings;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "pool-size-controller");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final long startedNanos = System.nanoTime();
+    private int idleWindows;
+    private volatile PoolSizeRecommender.Recommendation lastRecommendation;
+
+    public PoolSizeController(HikariDataSource dataSource, PoolUsage poolUsage, PoolSizeRecommender recommender, Settings settings) {
+        this.dataSource = dataSource;
+        this.poolUsage = poolUsage;
+        this.recommender = recommender;
+        this.settings = settings;
+    }
+
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::tick, settings.intervalMillis, settings.intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    public void tick() {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        if (pool == null) {
+            return; // 아직 첫 커넥션을 가져가지 않았다.
+        }
+        PoolUsage.AcquireWindow window = poolUsage.drainAcquireWindow();
+        int current = dataSource.getMaximumPoolSize();
+        int target = decide(current, window.averageWaitNanos(), pool.getThreadsAwaitingConnection(), pool.getActiveConnections());
+
+        if (settings.simulate) {
+            lastRecommendation = recommender.recommend(poolUsage.getMethods(), System.nanoTime() - startedNanos, settings.maxConcurrent);
+            log.info("풀 크기 시뮬레이션 current={}, controller={}, {}", current, target, lastRecommendation);
+            return;
+        }
+        if (target != current) {
+            log.info("커넥션 풀 크기 변경 {} -> {} (avgWait={}us, awaiting={}, active={})", current, target,
+                    window.averageWaitNanos() / 1_000, pool.getThreadsAwaitingConnection(), pool.getActiveConnections());
+            // 최소 idle 을 먼저 줄여야 최대 크기보다 커지지 않는다.
+            if (target < current) {
+                dataSource.getHikariConfigMXBean().setMinimumIdle(Math.min(dataSource.getMinimumIdle(), target));
+            }
+            dataSource.getHikariConfigMXBean().setMaximumPoolSize(target);
+        }
+    }
+
+    int decide(int current, long averageWaitNanos, int awaiting, int active) {
+        if (averageWaitNanos > settings.targetWaitNanos || awaiting > 0) {
+            idleWindows = 0;
+            return Math.min(settings.maxSize, current + settings.step);
+        }
+        if (active < current * settings.shrinkUtilization) {
+            if (++idleWindows >= settings.shrinkAfter) {
+                idleWindows = 0;
+                int floor = Math.min(settings.maxSize, Math.max(settings.minSize,
+                        PoolSizeRecommender.deadlockFreeMinimum(settings.maxConcurrent, maxDepth())));
+                return current - 1 < floor ? current : current - 1;
+            }
+            return current;
+        }
+        idleWindows = 0;
+        return current;
+    }
+
+    public PoolSizeRecommender.Recommendation getLastRecommendation() {
+        return lastRecommendation;
+    }
+
+    private int maxDepth() {
+        int depth = 1;
+        for (PoolUsage.MethodUsage usage : poolUsage.getMethods().values()) {
+            depth = Math.max(depth, usage.getMaxDepth());
+        }
+        return depth;
+    }
+
+    public static class Settings {
+        int minSize = 2;
+        int maxSize = 50;
+        int step = 2;
+        long targetWaitNanos = TimeUnit.MILLISECONDS.toNanos(5);
+        double shrinkUtilization = 0.5;
+        int shrinkAfter = 6;
+        long intervalMillis = 5_000;
+        boolean simulate;
+        int maxConcurrent = 12;
+
+        public Settings minSize(int minSize) {
+            this.minSize = minSize;
+            return this;
+        }
+
+        public Settings maxSize(int maxSize) {
+            this.maxSize = maxSize;
+            return this;
+        }
+
+        public Settings step(int step) {
+            this.step = step;
+            return this;
+        }
+
+        public Settings targetWaitMillis(long targetWaitMillis) {
+            this.targetWaitNanos = TimeUnit.MILLISECONDS.toNanos(targetWaitMillis);
+            return this;
+        }
+
+        public Settings shrinkUtilization(double shrinkUtilization) {
+            this.shrinkUtilization = shrinkUtilization;
+            return this;
+        }
+
+        public Settings shrinkAfter(int shrinkAfter) {
+            this.shrinkAfter = shrinkAfter;
+            return this;
+        }
+
+        public Settings intervalMillis(long intervalMillis) {
+            this.intervalMillis = intervalMillis;
+            return this;
+        }
+
+        public Settings simulate(boolean simulate) {
+            this.simulate = simulate;
+            return this;
+        }
+
+        public Settings maxConcurrent(int maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.springtransaction.pool;
+
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * 기록한 워크로드로 고정 풀 크기를 추천한다. (시뮬레이션 모드)
+ *
+ * - 평균 필요 커넥션 수 (Little's law) : 메서드마다 처리량(초당 호출 수) * 평균 실행 시간 * 평균 중첩 깊이 를 더한다.
+ * - 교착 방지 최소값 : 동시에 실행될 수 있는 스레드 수 * (최대 중첩 깊이 - 1) + 1
+ *   REQUIRES_NEW 는 첫 커넥션을 잡은 채 두 번째 커넥션을 기다리므로, 풀이 이보다 작으면 모든 스레드가 서로를 기다릴 수 있다.
+ * 추천 값은 (평균 필요 수 * (1 + headroom)) 과 교착 방지 최소값 중 큰 값이다.
+ */
+public class PoolSizeRecommender {
+
+    private final double headroom;
+
+    public PoolSizeRecommender(double headroom) {
+        this.headroom = headroom;
+    }
+
+    /**
+     * @param methods       기록된 서비스 메서드별 사용량
+     * @param windowNanos   기록한 기간
+     * @param maxConcurrent 동시에 서비스 메서드를 실행할 수 있는 최대 스레드 수 (요청 스레드 수, bulkhead 합계)
+     */
+    public Recommendation recommend(Map<String, PoolUsage.MethodUsage> methods, long windowNanos, int maxConcurrent) {
+        double seconds = Math.max(1, windowNanos) / 1_000_000_000.0;
+        double demand = 0;
+        int maxDepth = 1;
+        for (PoolUsage.MethodUsage usage : methods.values()) {
+            double throughput = usage.getCalls() / seconds;
+            double elapsedSeconds = usage.getAverageElapsedNanos() / 1_000_000_000.0;
+            demand += throughput * elapsedSeconds * usage.getAverageDepth();
+            maxDepth = Math.max(maxDepth, usage.getMaxDepth());
+        }
+        int deadlockFree = deadlockFreeMinimum(maxConcurrent, maxDepth);
+        int byDemand = (int) Math.ceil(demand * (1 + headroom));
+        return new Recommendation(demand, deadlockFree, Math.max(Math.max(byDemand, deadlockFree), 1));
+    }
+
+    /**
+     * 스레드마다 커넥션을 maxDepth 개까지 중첩해서 잡을 때 교착이 생기지 않는 최소 풀 크기
+     * 모든 스레드가 maxDepth - 1 개를 잡고 있어도 한 스레드는 마지막 커넥션을 얻어서 끝낼 수 있다.
+     */
+    public static int deadlockFreeMinimum(int maxConcurrent, int maxDepth) {
+        return maxConcurrent * (maxDepth - 1) + 1;
+    }
+
+    @Getter
+    public static class Recommendation {
+        private final double averageDemand;
+        private final int deadlockFreeMinimum;
+        private final int poolSize;
+
+        Recommendation(double averageDemand, int deadlockFreeMinimum, int poolSize) {
+            this.averageDemand = averageDemand;
+            this.deadlockFreeMinimum = deadlockFreeMinimum;
+            this.poolSize = poolSize;
+        }
+
+        @Override
+        public String toString() {
+            return "Recommendation{averageDemand=" + averageDemand + ", deadlockFreeMinimum=" + deadlockFreeMinimum +
+                    ", poolSize=" + poolSize + '}';
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.springtransaction.pool;
+
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 커넥션 풀 사용량 기록
+ * - 커넥션 획득 대기 시간 (PoolMetricsTrackerFactory)
+ * - 스레드가 동시에 잡고 있는 커넥션 수(중첩 깊이) (ConnectionDepthDataSource)
+ * - 서비스 메서드별 호출 수, 실행 시간, 최대 중첩 깊이 (ConnectionDepthAspect)
+ *   REQUIRES_NEW 로 로그를 남기는 MemberService.joinV1 은 2, OrderService.order 는 1 이다.
+ */
+public class PoolUsage {
+
+    private static final ThreadLocal<int[]> depth = ThreadLocal.withInitial(() -> new int[2]); // [현재, 최대]
+
+    private final LongAdder acquireCount = new LongAdder();
+    private final LongAdder acquireWaitNanos = new LongAdder();
+    private final LongAccumulator maxAcquireWaitNanos = new LongAccumulator(Math::max, 0);
+    private final Map<String, MethodUsage> methods = new ConcurrentHashMap<>();
+
+    void recordAcquire(long waitNanos) {
+        acquireCount.increment();
+        acquireWaitNanos.add(waitNanos);
+        maxAcquireWaitNanos.accumulate(waitNanos);
+    }
+
+    /**
+     * 획득 수, 대기 시간 합계, 최대 대기 시간을 읽고 0으로 되돌린다. (컨트롤러의 한 구간)
+     */
+    AcquireWindow drainAcquireWindow() {
+        return new AcquireWindow(acquireCount.sumThenReset(), acquireWaitNanos.sumThenReset(), maxAcquireWaitNanos.getThenReset());
+    }
+
+    static void connectionOpened() {
+        int[] current = depth.get();
+        current[0]++;
+        current[1] = Math.max(current[1], current[0]);
+    }
+
+    static void connectionClosed() {
+        depth.get()[0]--;
+    }
+
+    /**
+     * 가장 바깥 서비스 메서드가 시작될 때 최대 깊이를 현재 깊이로 되돌린다.
+     */
+    static int resetPeakDepth() {
+        int[] current = depth.get();
+        int previousPeak = current[1];
+        current[1] = current[0];
+        return previousPeak;
+    }
+
+    static int peakDepth() {
+        return depth.get()[1];
+    }
+
+    static void restorePeakDepth(int peak) {
+        int[] current = depth.get();
+        current[1] = Math.max(current[1], peak);
+    }
+
+    void recordMethod(String method, long elapsedNanos, int peakDepth) {
+        methods.computeIfAbsent(method, key -> new MethodUsage()).record(elapsedNanos, peakDepth);
+    }
+
+    public Map<String, MethodUsage> getMethods() {
+        return new TreeMap<>(methods);
+    }
+
+    @Getter
+    public static class AcquireWindow {
+        private final long count;
+        private final long waitNanos;
+        private final long maxWaitNanos;
+
+        AcquireWindow(long count, long waitNanos, long maxWaitNanos) {
+            this.count = count;
+            this.waitNanos = waitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+        }
+
+        public long averageWaitNanos() {
+            return count == 0 ? 0 : waitNanos / count;
+        }
+    }
+
+    public static class MethodUsage {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder elapsedNanos = new LongAdder();
+        private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+        private final LongAdder depthSum = new LongAdder();
+
+        void record(long elapsed, int peakDepth) {
+            calls.increment();
+            elapsedNanos.add(elapsed);
+            depthSum.add(peakDepth);
+            maxDepth.accumulate(peakDepth);
+        }
+
+        public long getCalls() {
+            return calls.sum();
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos.sum();
+        }
+
+        public int getMaxDepth() {
+            return (int) maxDepth.get();
+        }
+
+        public double getAverageDepth() {
+            long count = calls.sum();
+            return count == 0 ? 0 : (double) depthSum.sum() / count;
+        }
+
+        public double getAverageElapsedNanos() {
+            long count = calls.sum();
+            return count == 0 ? 0 : (double) elapsedNanos.sum() / count;
+        }
+
+        @Override
+        public String toString() {
+            return "MethodUsage{calls=" + getCalls() + ", avgMillis=" + getAverageElapsedNanos() / 1_000_000 +
+                    ", avgDepth=" + getAverageDepth() + ", maxDepth=" + getMaxDepth() + '}';
+        }
+    }
+}
@@ -3,20 +3,20 @@ package com.example.springtransaction.propagation;
 import lombok.Getter;
 import lombok.Setter;
 
-import javax.persistence.Entity;
-import javax.persistence.GeneratedValue;
-import javax.persistence.Id;
+import java.time.LocalDateTime;
 
-@Entity
+/**
+ * DB로그
+ * 엔티티가 아니다. 생성 일자별 테이블(log_yyyyMMdd)에 나누어 저장한다. (LogBucketRouter)
+ */
 @Getter
 @Setter
 public class Log {
 
-    @Id
-    @GeneratedValue
     private Long id;
 
     private String message;
+    private LocalDateTime createdAt = LocalDateTime.now(); // 저장될 버킷(테이블)을 결정한다.
 
     public Log() {
     }
@@ -0,0 +1,333 @@
+package com.example.springtransaction.propagation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * DB로그를 생성 일자별 테이블(버킷)로 나누어 저장한다.
+ * - 저장 : createdAt 일자의 log_yyyyMMdd 테이블
+ *   버킷은 시작할 때(오늘, 내일)와 매일 maintain 에서(다음날) 미리 만든다.
+ *   저장 경로에서는 DDL 을 실행하지 않는다. DDL 은 별도 커넥션을 쓰므로, REQUIRES_NEW 로 이미 커넥션 2개를 잡은
+ *   joinV1 이 세 번째 커넥션을 잡게 되어 bulkhead, 풀 크기 계산이 맞지 않는다. 버킷이 없으면 바로 실패한다.
+ * - 조회 : 모든 버킷을 UNION ALL 로 읽고 created_at 최신 순서로 한 건을 고른다. 버킷마다 message 인덱스가 있다.
+ * - 보관 기간 정리 : 오래된 버킷 테이블을 DROP 한다. 행 단위 DELETE 와 달리 긴 트랜잭션과 락 경합이 없다.
+ *
+ * 조회 SQL 은 버킷 목록이 바뀔 때만 다시 만든다.
+ * -> 같은 SQL 문자열이 반복되므로 H2 세션의 쿼리 캐시(QUERY_CACHE_SIZE)에서 파싱 결과를 재사용한다.
+ *
+ * 버킷 목록은 이 프로세스가 알고 있는 목록이다. 다른 인스턴스가 버킷을 만들거나 삭제하면 달라질 수 있다.
+ * - 이미 만든 조회 SQL 의 버킷이 삭제되었으면(table not found) 목록을 INFORMATION_SCHEMA 에서 다시 읽고 한 번 더 조회한다.
+ * - 조회 결과가 없으면 refresh-interval 마다 한 번 목록을 다시 읽어서 다른 인스턴스가 만든 버킷을 반영한다.
+ *
+ * H2 에서 DDL 은 진행중인 트랜잭션을 커밋하므로, 테이블 생성/삭제는 트랜잭션에 참여하지 않는 별도 커넥션에서 실행한다.
+ * 로그 insert 는 JdbcTemplate 으로 실행해서 진행중인 트랜잭션(REQUIRES_NEW, MANDATORY)에 그대로 참여한다.
+ * id는 엔티티와 같은 hibernate_sequence 에서 받는다.
+ */
+@Slf4j
+@Component
+public class LogBucketRouter {
+
+    private static final String PREFIX = "log_";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.BASIC_ISO_DATE; // yyyyMMdd
+    private static final RowMapper<Log> LOG_ROW_MAPPER = (rs, rowNum) -> {
+        Log logMessage = new Log(rs.getString("message"));
+        logMessage.setId(rs.getLong("id"));
+        logMessage.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+        return logMessage;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final int retentionDays;
+    private final long refreshIntervalNanos;
+
+    // 존재하는 버킷 일자, 최신 순서로 조회하기 위해 정렬해 둔다.
+    private final NavigableSet<LocalDate> buckets = new ConcurrentSkipListSet<>();
+    // 버킷 목록이 바뀌면 version 이 올라가고, 다음 조회에서 SQL 을 다시 만든다.
+    private final AtomicLong bucketVersion = new AtomicLong();
+    private volatile FindQuery findQuery;
+    private final LongAdder findQueryHits = new LongAdder();
+    private final LongAdder findQueryMisses = new LongAdder();
+    private final AtomicLong lastRefreshNanos = new AtomicLong(System.nanoTime());
+
+    public LogBucketRouter(JdbcTemplate jdbcTemplate,
+                           DataSource dataSource,
+                           @Value("${log.bucket.retention-days:30}") int retentionDays,
+                           @Value("${log.bucket.refresh-interval-millis:10000}") long refreshIntervalMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.retentionDays = retentionDays;
+        this.refreshIntervalNanos = TimeUnit.MILLISECONDS.toNanos(refreshIntervalMillis);
+    }
+
+    @PostConstruct
+    public void init() {
+        buckets.addAll(existingBuckets());
+        ensureBucket(LocalDate.now());
+        ensureBucket(LocalDate.now().plusDays(1));
+        log.info("로그 버킷 buckets={}", buckets);
+    }
+
+    public void insert(Log logMessage) {
+        insertAll(List.of(logMessage));
+    }
+
+    /**
+     * 여러 건을 버킷별 JDBC batch 로 저장한다.
+     * id 는 한 번의 조회로 건수만큼 받는다.
+     */
+    public void insertAll(List<Log> logs) {
+        if (logs.isEmpty()) {
+            return;
+        }
+        List<Long> ids = jdbcTemplate.queryForList(
+                "select next value for hibernate_sequence from system_range(1, ?)", Long.class, logs.size());
+        Map<String, List<Object[]>> rowsByTable = new LinkedHashMap<>();
+        for (int i = 0; i < logs.size(); i++) {
+            Log logMessage = logs.get(i);
+            logMessage.setId(ids.get(i));
+            rowsByTable.computeIfAbsent(existingBucket(logMessage.getCreatedAt().toLocalDate()), table -> new ArrayList<>())
+                    .add(new Object[]{logMessage.getId(), logMessage.getMessage(), Timestamp.valueOf(logMessage.getCreatedAt())});
+        }
+        rowsByTable.forEach((table, rows) ->
+                jdbcTemplate.batchUpdate("insert into " + table + " (id, message, created_at) values (?, ?, ?)", rows));
+    }
+
+    /**
+     * 같은 message 의 로그가 여러 건이면 가장 최근(created_at) 로그를 반환한다.
+     */
+    public Optional<Log> findByMessage(String message) {
+        try {
+            Optional<Log> found = find(message);
+            if (found.isEmpty() && refreshIfStale()) {
+                return find(message);
+            }
+            return found;
+        } catch (BadSqlGrammarException e) {
+            // 조회 SQL 을 만든 뒤에 버킷이 삭제되었다. (purgeBefore, 다른 인스턴스)
+            log.info("로그 버킷이 바뀌어 다시 조회합니다. {}", e.getMessage());
+            refreshBuckets();
+            return find(message);
+        }
+    }
+
+    private Optional<Log> find(String message) {
+        FindQuery query = findQuery();
+        if (query.parameterCount == 0) {
+            return Optional.empty();
+        }
+        Object[] args = new Object[query.parameterCount];
+        Arrays.fill(args, message);
+        return jdbcTemplate.query(query.sql, LOG_ROW_MAPPER, args).stream().findFirst();
+    }
+
+    public long getFindQueryHits() {
+        return findQueryHits.sum();
+    }
+
+    public long getFindQueryMisses() {
+        return findQueryMisses.sum();
+    }
+
+    private FindQuery findQuery() {
+        long version = bucketVersion.get();
+        FindQuery query = findQuery;
+        if (query != null && query.version == version) {
+            findQueryHits.increment();
+            return query;
+        }
+        findQueryMisses.increment();
+        List<LocalDate> days = new ArrayList<>(buckets.descendingSet());
+        // UNION ALL 은 순서를 보장하지 않으므로 생성 시각으로 정렬해서 최근 로그를 고른다.
+        StringBuilder sql = new StringBuilder("select id, message, created_at from (");
+        for (int i = 0; i < days.size(); i++) {
+            if (i > 0) {
+                sql.append(" union all ");
+            }
+            sql.append("select id, message, created_at from ").append(tableName(days.get(i))).append(" where message = ?");
+        }
+        sql.append(") l order by created_at desc, id desc limit 1");
+        query = new FindQuery(version, sql.toString(), days.size());
+        findQuery = query;
+        return query;
+    }
+
+    public long count() {
+        long count = 0;
+        for (LocalDate day : buckets) {
+            try {
+                count += jdbcTemplate.queryForObject("select count(*) from " + tableName(day), Long.class);
+            } catch (BadSqlGrammarException e) {
+                log.info("로그 버킷이 이미 삭제되었습니다. table={}", tableName(day)); // 삭제된 버킷은 0건이다.
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 버킷 목록을 INFORMATION_SCHEMA 의 테이블 목록으로 바꾼다.
+     *
+     * @return 목록이 바뀌었으면 true
+     */
+    public boolean refreshBuckets() {
+        lastRefreshNanos.set(System.nanoTime());
+        Set<LocalDate> existing = existingBuckets();
+        synchronized (buckets) {
+            if (existing.equals(new HashSet<>(buckets))) {
+                return false;
+            }
+            buckets.retainAll(existing);
+            buckets.addAll(existing);
+            bucketVersion.incrementAndGet();
+        }
+        log.info("로그 버킷 목록 갱신 buckets={}", buckets);
+        return true;
+    }
+
+    // 마지막으로 읽은 뒤 refresh-interval 이 지났을 때만 다시 읽는다.
+    private boolean refreshIfStale() {
+        long last = lastRefreshNanos.get();
+        if (System.nanoTime() - last < refreshIntervalNanos || !lastRefreshNanos.compareAndSet(last, System.nanoTime())) {
+            return false;
+        }
+        return refreshBuckets();
+    }
+
+    private Set<LocalDate> existingBuckets() {
+        Set<LocalDate> existing = new HashSet<>();
+        jdbcTemplate.queryForList(
+                "select table_name from information_schema.tables where table_schema = schema() and table_name like 'LOG\\_%'",
+                String.class).forEach(name -> parse(name).ifPresent(existing::add));
+        return existing;
+    }
+
+    /**
+     * 저장할 버킷 테이블 이름, 없으면 다른 인스턴스가 만들었는지 목록을 다시 읽어보고 그래도 없으면 실패한다.
+     */
+    private String existingBucket(LocalDate day) {
+        if (!buckets.contains(day)) {
+            refreshBuckets();
+            if (!buckets.contains(day)) {
+                throw new IllegalStateException("로그 버킷이 없습니다. table=" + tableName(day));
+            }
+        }
+        return tableName(day);
+    }
+
+    /**
+     * day 의 버킷 테이블 이름, 없으면 만든다.
+     * 별도 커넥션에서 DDL 을 실행하므로 트랜잭션 밖에서 호출한다.
+     */
+    public String ensureBucket(LocalDate day) {
+        String table = tableName(day);
+        if (!buckets.contains(day)) {
+            synchronized (buckets) {
+                if (!buckets.contains(day)) {
+                    executeDdl("create table if not exists " + table +
+                                    " (id bigint not null primary key, message varchar(255), created_at timestamp not null)",
+                            "create index if not exists " + table + "_message on " + table + " (message)");
+                    buckets.add(day);
+                    bucketVersion.incrementAndGet();
+                    log.info("로그 버킷 생성 table={}", table);
+                }
+            }
+        }
+        return table;
+    }
+
+    /**
+     * 다음날 버킷을 미리 만들고, 보관 기간이 지난 버킷을 삭제한다.
+     */
+    @Scheduled(cron = "${log.bucket.maintenance-cron:0 5 0 * * *}")
+    public void maintain() {
+        LocalDate today = LocalDate.now();
+        ensureBucket(today.plusDays(1));
+        purgeBefore(today.minusDays(retentionDays));
+    }
+
+    /**
+     * cutoff 이전 일자의 버킷을 DROP 한다. 버킷 수만큼의 DDL 만 실행하므로 행 수와 관계없다.
+     *
+     * @return 삭제한 버킷 수
+     */
+    public int purgeBefore(LocalDate cutoff) {
+        int dropped = 0;
+        for (LocalDate day : new ArrayList<>(buckets.headSet(cutoff))) {
+            // 조회 대상에서 먼저 빼고 테이블을 삭제한다.
+            buckets.remove(day);
+            bucketVersion.incrementAndGet();
+            executeDdl("drop table if exists " + tableName(day));
+            log.info("로그 버킷 삭제 table={}", tableName(day));
+            dropped++;
+        }
+        return dropped;
+    }
+
+    public List<LocalDate> getBuckets() {
+        return new ArrayList<>(buckets);
+    }
+
+    private void executeDdl(String... sqls) {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            try (Statement statement = connection.createStatement()) {
+                for (String sql : sqls) {
+                    statement.execute(sql);
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("로그 버킷 DDL 실패 " + String.join("; ", sqls), e);
+        }
+    }
+
+    private static String tableName(LocalDate day) {
+        return PREFIX + SUFFIX.format(day);
+    }
+
+    private static Optional<LocalDate> parse(String tableName) {
+        String suffix = tableName.substring(PREFIX.length());
+        if (suffix.length() != 8 || !suffix.chars().allMatch(Character::isDigit)) {
+            return Optional.empty();
+        }
+        return Optional.of(LocalDate.parse(suffix, SUFFIX));
+    }
+
+    private static class FindQuery {
+        private final long version;
+        private final String sql;
+        private final int parameterCount;
+
+        private FindQuery(long version, String sql, int parameterCount) {
+            this.version = version;
+            this.sql = sql;
+            this.parameterCount = parameterCount;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.springtransaction.propagation;
+
+/**
+ * 로그 저장 서킷 브레이커
+ * CLOSED : 정상 상태, DB에 로그를 저장한다.
+ * OPEN : 연속 실패가 failureThreshold 에 도달하면 열린다. openMillis 동안 DB 저장을 시도하지 않는다.
+ * HALF_OPEN : openMillis 가 지나면 한 건만 DB 저장을 시도해본다. 성공하면 CLOSED, 실패하면 다시 OPEN
+ */
+public class LogCircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private State state = State.CLOSED;
+    private int failures;
+    private long openedAt;
+
+    public LogCircuitBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openMillis * 1_000_000L;
+    }
+
+    /**
+     * DB 저장을 시도해도 되는지 확인한다.
+     * OPEN 상태에서 대기 시간이 지나면 HALF_OPEN 으로 바뀌고, 이 호출 한 건만 시험 삼아 허용한다.
+     */
+    public synchronized boolean allowRequest() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+            return true;
+        }
+        return false;
+    }
+
+    public synchronized void onSuccess() {
+        state = State.CLOSED;
+        failures = 0;
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN || ++failures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+            failures = 0;
+        }
+    }
+
+    /**
+     * DB 장애가 아닌 실패 (로그 한 건의 문제)
+     * 상태를 바꾸지 않는다. 시험 저장이었다면 다음 요청이 바로 다시 시험할 수 있게 OPEN 으로 되돌린다. (대기 시간은 이미 지났다)
+     */
+    public synchronized void onIgnoredFailure() {
+        if (state == State.HALF_OPEN) {
+            state = State.OPEN;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public boolean isClosed() {
+        return getState() == State.CLOSED;
+    }
+}
@@ -6,20 +6,33 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import javax.persistence.EntityManager;
+import java.util.List;
 import java.util.Optional;
 
+/**
+ * DB로그 저장소
+ * 로그는 생성 일자별 테이블에 저장된다. (LogBucketRouter)
+ */
 @Slf4j
 @Repository
 @RequiredArgsConstructor
 public class LogRepository {
 
-    private final EntityManager em;
+    private final LogBucketRouter router;
 
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void save(Log logMessage) {
+        persist(logMessage);
+    }
+
+    /**
+     * 별도의 물리 트랜잭션을 만들지 않고 이미 진행중인 트랜잭션에 참여해서 저장한다.
+     * 여러 건을 하나의 트랜잭션으로 묶어서 저장할 때 사용한다. (MemberJoinBatcher)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void persist(Log logMessage) {
         log.info("log 저장");
-        em.persist(logMessage);
+        router.insert(logMessage);
 
         if (logMessage.getMessage().contains("로그예외")) {
             log.info("log 저장시 예외 발생");
@@ -27,9 +40,22 @@ public class LogRepository {
         }
     }
 
+    /**
+     * 여러 건을 진행중인 트랜잭션에서 JDBC batch 로 저장한다. (MemberJoinBatcher)
+     * '로그예외' 가 하나라도 있으면 모두 저장한 뒤 예외를 던진다. -> 트랜잭션 전체가 롤백된다.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void persistAll(List<Log> logMessages) {
+        log.info("log 묶음 저장 size={}", logMessages.size());
+        router.insertAll(logMessages);
+
+        if (logMessages.stream().anyMatch(logMessage -> logMessage.getMessage().contains("로그예외"))) {
+            log.info("log 저장시 예외 발생");
+            throw new RuntimeException("예외 발생");
+        }
+    }
+
     public Optional<Log> find(String message) {
-        return em.createQuery("select l from Log l where l.message= :message", Log.class)
-                .setParameter("message", message)
-                .getResultList().stream().findAny();
+        return router.findByMessage(message);
     }
 }
@@ -0,0 +1,33 @@
+package com.example.springtransaction.propagation;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * spill 파일 재처리 위치
+ * 재처리한 로그 저장과 같은 트랜잭션에서 갱신되기 때문에 로그가 두 번 저장되거나 누락되지 않는다.
+ */
+@Entity
+@Getter
+@Setter
+public class LogSpillCheckpoint {
+
+    public static final String LOG_SPILL = "log-spill";
+
+    @Id
+    private String name;
+
+    private long generation;     // 현재 spill 파일 세대, 끝까지 재처리하면 다음 세대 파일로 넘어간다.
+    private long replayedOffset; // 현재 세대 파일에서 DB에 반영된 위치
+
+    public LogSpillCheckpoint() {
+    }
+
+    public LogSpillCheckpoint(long generation) {
+        this.name = LOG_SPILL;
+        this.generation = generation;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.springtransaction.propagation;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.Optional;
+
+@Repository
+@RequiredArgsConstructor
+public class LogSpillCheckpointRepository {
+
+    private final EntityManager em;
+
+    @Transactional(readOnly = true)
+    public Optional<LogSpillCheckpoint> find() {
+        return Optional.ofNullable(em.find(LogSpillCheckpoint.class, LogSpillCheckpoint.LOG_SPILL));
+    }
+
+    @Transactional
+    public LogSpillCheckpoint findOrCreate(long initialGeneration) {
+        LogSpillCheckpoint checkpoint = em.find(LogSpillCheckpoint.class, LogSpillCheckpoint.LOG_SPILL);
+        if (checkpoint == null) {
+            checkpoint = new LogSpillCheckpoint(initialGeneration);
+            em.persist(checkpoint);
+        }
+        return checkpoint;
+    }
+
+    /**
+     * 재처리 위치를 expectedOffset -> offset 으로 옮긴다.
+     * 다른 곳에서 먼저 옮겼다면 예외를 던져서 함께 저장한 로그까지 롤백한다.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void advance(long generation, long expectedOffset, long offset) {
+        int updated = em.createQuery("update LogSpillCheckpoint c set c.replayedOffset = :offset" +
+                        " where c.name = :name and c.generation = :generation and c.replayedOffset = :expected")
+                .setParameter("offset", offset)
+                .setParameter("name", LogSpillCheckpoint.LOG_SPILL)
+                .setParameter("generation", generation)
+                .setParameter("expected", expectedOffset)
+                .executeUpdate();
+        if (updated != 1) {
+            throw new IllegalStateException("spill 체크포인트가 이미 변경되었습니다. generation=" + generation);
+        }
+    }
+
+    /**
+     * 현재 세대를 끝까지 재처리했으면 다음 세대로 넘어간다.
+     */
+    @Transactional
+    public void rotate(long generation, long replayedOffset) {
+        int updated = em.createQuery("update LogSpillCheckpoint c set c.generation = :next, c.replayedOffset = 0" +
+                        " where c.name = :name and c.generation = :generation and c.replayedOffset = :offset")
+                .setParameter("next", generation + 1)
+                .setParameter("name", LogSpillCheckpoint.LOG_SPILL)
+                .setParameter("generation", generation)
+                .setParameter("offset", replayedOffset)
+                .executeUpdate();
+        if (updated != 1) {
+            throw new IllegalStateException("spill 체크포인트가 이미 변경되었습니다. generation=" + generation);
+        }
+    }
+}
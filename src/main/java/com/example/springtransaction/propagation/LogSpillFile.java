@@ -0,0 +1,131 @@
+package com.example.springtransaction.propagation;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DB에 저장하지 못한 로그를 쌓아두는 추가 전용(append-only) 파일
+ * 레코드 형식 : [메시지 길이(int)][메시지(UTF-8)]
+ * 레코드의 위치(offset)가 곧 재처리 체크포인트가 된다.
+ */
+public class LogSpillFile implements Closeable {
+
+    private static final int HEADER_SIZE = Integer.BYTES;
+
+    private final Path path;
+    private final FileChannel channel;
+    private volatile long size; // 끝까지 기록이 완료된 위치, 이 위치까지만 읽는다.
+
+    private LogSpillFile(Path path, FileChannel channel, long size) {
+        this.path = path;
+        this.channel = channel;
+        this.size = size;
+    }
+
+    /**
+     * 파일을 연다. 기록 도중 종료되어 잘린 마지막 레코드가 있으면 잘라낸다.
+     */
+    public static LogSpillFile open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long valid = lastCompleteOffset(channel, channel.size());
+        channel.truncate(valid);
+        return new LogSpillFile(path, channel, valid);
+    }
+
+    public synchronized void append(String message) throws IOException {
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + bytes.length);
+        buffer.putInt(bytes.length).put(bytes).flip();
+
+        long position = size;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        channel.force(false);
+        size = position;
+    }
+
+    /**
+     * offset 부터 최대 maxRecords 건을 읽는다.
+     */
+    public List<Record> read(long offset, int maxRecords) throws IOException {
+        long end = size;
+        List<Record> records = new ArrayList<>();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (records.size() < maxRecords && offset + HEADER_SIZE <= end) {
+            header.clear();
+            readFully(channel, header, offset);
+            int length = header.flip().getInt();
+            long next = offset + HEADER_SIZE + length;
+            if (next > end) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(channel, payload, offset + HEADER_SIZE);
+            records.add(new Record(new String(payload.array(), StandardCharsets.UTF_8), next));
+            offset = next;
+        }
+        return records;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public void delete() throws IOException {
+        close();
+        Files.deleteIfExists(path);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static long lastCompleteOffset(FileChannel channel, long end) throws IOException {
+        long offset = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (offset + HEADER_SIZE <= end) {
+            header.clear();
+            readFully(channel, header, offset);
+            long next = offset + HEADER_SIZE + header.flip().getInt();
+            if (next > end) {
+                break;
+            }
+            offset = next;
+        }
+        return offset;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("spill 파일이 예상보다 짧습니다. path=" + channel);
+            }
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Record {
+        private final String message;
+        private final long nextOffset; // 이 레코드 다음 위치, 재처리 후 체크포인트로 저장한다.
+    }
+}
@@ -0,0 +1,305 @@
+package com.example.springtransaction.propagation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.NonTransientDataAccessResourceException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * DB로그 저장 실패를 복구하는 로그 저장기 (joinV2)
+ *
+ * 로그 저장이 계속 실패하면 서킷 브레이커가 열리고, 그 동안은 REQUIRES_NEW 트랜잭션을 시작하지 않고
+ * 로컬 spill 파일에 로그를 기록한다.
+ * 서킷이 다시 닫히면 별도 스레드에서 spill 파일의 로그를 묶음 단위로 DB에 다시 저장한다.
+ * 재처리 위치(LogSpillCheckpoint)는 로그 저장과 같은 트랜잭션에서 갱신하므로 한 번만 저장된다.
+ *
+ * 서킷은 DB 장애(커넥션, 일시적인 데이터 접근 실패)만 센다. '로그예외' 처럼 로그 한 건의 문제는 버리기만 한다.
+ * spill 파일은 재처리 위치와 짝이 맞아야 하므로 spill 디렉토리는 애플리케이션(DB)마다 따로 지정한다. (log.spill.dir)
+ * 같은 디렉토리를 다른 프로세스나 컨텍스트가 사용중이면 시작하지 않는다.
+ *
+ * spill 디렉토리, 잠금 파일, 재처리 스레드를 만들기 때문에 log.circuit.enabled=true 일 때만 등록한다.
+ * 꺼져 있으면 joinV2 는 로그 저장 예외를 잡아서 버리기만 한다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "log.circuit.enabled", havingValue = "true")
+public class LogWriter {
+
+    private static final String FILE_PREFIX = "log-spill-";
+    private static final String FILE_SUFFIX = ".dat";
+    private static final String LOCK_FILE = ".lock";
+
+    private final LogRepository logRepository;
+    private final LogSpillCheckpointRepository checkpointRepository;
+    private final TransactionTemplate txTemplate;
+    private final LogCircuitBreaker circuitBreaker;
+    private final Path spillDir;
+    private final int replayBatchSize;
+
+    private final ExecutorService replayExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "log-spill-replay");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean replayScheduled = new AtomicBoolean();
+    private final Object spillLock = new Object();
+
+    // spillLock 으로 보호, 재처리 위치는 재처리 스레드에서만 변경한다.
+    private FileChannel lockChannel;
+    private LogSpillFile spillFile;
+    private volatile long generation;
+    private volatile long replayedOffset;
+    private volatile boolean spillPending;
+
+    public LogWriter(LogRepository logRepository,
+                     LogSpillCheckpointRepository checkpointRepository,
+                     PlatformTransactionManager txManager,
+                     @Value("${log.circuit.failure-threshold:5}") int failureThreshold,
+                     @Value("${log.circuit.open-millis:10000}") long openMillis,
+                     @Value("${log.spill.dir}") String spillDir,
+                     @Value("${log.spill.replay-batch-size:500}") int replayBatchSize) {
+        this.logRepository = logRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.txTemplate = new TransactionTemplate(txManager);
+        this.circuitBreaker = new LogCircuitBreaker(failureThreshold, openMillis);
+        this.spillDir = Paths.get(spillDir);
+        this.replayBatchSize = replayBatchSize;
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(spillDir);
+        lock();
+        List<Long> generations = existingGenerations();
+        // 체크포인트가 없는 새 DB 라면 남아있는 파일은 다른 DB 에서 기록한 것이다. -> 재처리하지 않고 옮겨둔다.
+        if (!generations.isEmpty() && checkpointRepository.find().isEmpty()) {
+            quarantine(generations);
+            generations.clear();
+        }
+        long initialGeneration = generations.isEmpty() ? 0 : generations.get(generations.size() - 1);
+
+        LogSpillCheckpoint checkpoint = checkpointRepository.findOrCreate(initialGeneration);
+        generation = checkpoint.getGeneration();
+        replayedOffset = checkpoint.getReplayedOffset();
+
+        // 이전 세대 파일은 이미 끝까지 재처리된 파일이다.
+        for (Long old : generations) {
+            if (old < generation) {
+                Files.deleteIfExists(spillPath(old));
+            }
+        }
+        spillFile = LogSpillFile.open(spillPath(generation));
+        if (spillFile.size() > replayedOffset) {
+            log.info("재처리할 spill 로그가 남아있습니다. path={}", spillFile.getPath());
+            spillPending = true;
+            scheduleReplay();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        replayExecutor.shutdownNow();
+        synchronized (spillLock) {
+            spillFile.close();
+            lockChannel.close(); // 잠금도 함께 풀린다.
+        }
+    }
+
+    /**
+     * 로그 저장에 실패하면 예외를 복구해서 정상 흐름으로 변환한다.
+     * 서킷이 열려 있으면 DB 대신 spill 파일에 기록한다.
+     */
+    public void write(Log logMessage) {
+        if (!circuitBreaker.allowRequest()) {
+            spill(logMessage);
+            return;
+        }
+        try {
+            logRepository.save(logMessage);
+            circuitBreaker.onSuccess();
+        } catch (RuntimeException e) {
+            if (isInfrastructureFailure(e)) {
+                circuitBreaker.onFailure();
+            } else {
+                circuitBreaker.onIgnoredFailure();
+            }
+            log.info("log 저장에 실패했습니다. logMessage={}", logMessage.getMessage());
+            log.info("정상 흐름 변환");
+            return;
+        }
+        if (spillPending) {
+            scheduleReplay();
+        }
+    }
+
+    /**
+     * DB 를 사용할 수 없는 실패인지 확인한다.
+     * 커넥션, 트랜잭션 시작 실패와 일시적인 데이터 접근 실패만 해당하고, 로그 한 건의 문제(제약 조건 위반, '로그예외')는 아니다.
+     */
+    static boolean isInfrastructureFailure(Throwable e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof NonTransientDataAccessResourceException
+                || e instanceof CannotCreateTransactionException;
+    }
+
+    public LogCircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    private void spill(Log logMessage) {
+        log.info("서킷이 열려 있어 log 를 spill 파일에 기록합니다. logMessage={}", logMessage.getMessage());
+        synchronized (spillLock) {
+            try {
+                spillFile.append(logMessage.getMessage());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            spillPending = true;
+        }
+    }
+
+    private void scheduleReplay() {
+        if (replayScheduled.compareAndSet(false, true)) {
+            replayExecutor.execute(this::replay);
+        }
+    }
+
+    private void replay() {
+        try {
+            while (circuitBreaker.isClosed()) {
+                List<LogSpillFile.Record> records = spillFile.read(replayedOffset, replayBatchSize);
+                if (records.isEmpty()) {
+                    rotate();
+                    return;
+                }
+                try {
+                    apply(records);
+                } catch (RuntimeException e) {
+                    log.info("spill 로그 묶음 재처리 실패, 한 건씩 다시 시도합니다. size={}", records.size());
+                    for (LogSpillFile.Record record : records) {
+                        applyOne(record);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.error("spill 파일을 읽을 수 없습니다. path={}", spillFile.getPath(), e);
+        } catch (RuntimeException e) {
+            circuitBreaker.onFailure();
+            log.warn("spill 로그 재처리를 중단합니다. replayedOffset={}", replayedOffset, e);
+        } finally {
+            replayScheduled.set(false);
+        }
+    }
+
+    // 로그 저장과 재처리 위치 갱신을 하나의 트랜잭션으로 묶는다.
+    private void apply(List<LogSpillFile.Record> records) {
+        long from = replayedOffset;
+        long to = records.get(records.size() - 1).getNextOffset();
+        txTemplate.executeWithoutResult(status -> {
+            records.forEach(record -> logRepository.persist(new Log(record.getMessage())));
+            checkpointRepository.advance(generation, from, to);
+        });
+        replayedOffset = to;
+    }
+
+    private void applyOne(LogSpillFile.Record record) {
+        try {
+            apply(List.of(record));
+        } catch (RuntimeException e) {
+            // 재처리 위치만 단독으로 옮길 수 있다면 DB는 정상이고 이 로그 자체가 문제다. -> joinV2 와 같이 버린다.
+            // DB가 비정상이면 여기서도 예외가 발생하고 재처리가 중단된다.
+            long from = replayedOffset;
+            txTemplate.executeWithoutResult(status -> checkpointRepository.advance(generation, from, record.getNextOffset()));
+            replayedOffset = record.getNextOffset();
+            log.info("spill 로그 저장에 실패해서 버립니다. logMessage={}", record.getMessage());
+        }
+    }
+
+    /**
+     * 끝까지 재처리한 파일은 다음 세대 파일로 교체한다.
+     * 체크포인트를 먼저 커밋하고 파일을 지우기 때문에 중간에 종료되어도 이전 세대 파일이 남을 뿐 다시 저장되지 않는다.
+     */
+    private void rotate() throws IOException {
+        synchronized (spillLock) {
+            if (spillFile.size() != replayedOffset) {
+                return; // 그 사이에 새로 기록된 로그가 있다. 다음 재처리에서 처리한다.
+            }
+            spillPending = false;
+            if (replayedOffset == 0) {
+                return;
+            }
+            checkpointRepository.rotate(generation, replayedOffset);
+            spillFile.delete();
+            generation++;
+            replayedOffset = 0;
+            spillFile = LogSpillFile.open(spillPath(generation));
+            log.info("spill 로그 재처리 완료 generation={}", generation);
+        }
+    }
+
+    private void lock() throws IOException {
+        lockChannel = FileChannel.open(spillDir.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null; // 같은 JVM 의 다른 컨텍스트
+        }
+        if (lock == null) {
+            lockChannel.close();
+            throw new IllegalStateException("spill 디렉토리를 다른 곳에서 사용중입니다. log.spill.dir=" + spillDir);
+        }
+    }
+
+    private void quarantine(List<Long> generations) throws IOException {
+        Path orphanDir = spillDir.resolve("orphaned-" + System.currentTimeMillis());
+        Files.createDirectories(orphanDir);
+        for (Long old : generations) {
+            Files.move(spillPath(old), orphanDir.resolve(spillPath(old).getFileName()));
+        }
+        log.warn("체크포인트가 없는 DB 입니다. 이전 spill 파일을 재처리하지 않고 옮겨둡니다. path={}", orphanDir);
+    }
+
+    private Path spillPath(long generation) {
+        return spillDir.resolve(FILE_PREFIX + generation + FILE_SUFFIX);
+    }
+
+    private List<Long> existingGenerations() throws IOException {
+        List<Long> generations = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(spillDir, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                generations.add(Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length())));
+            }
+        }
+        generations.sort(null);
+        return generations;
+    }
+}
@@ -6,12 +6,20 @@ import lombok.Setter;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.NamedQuery;
 
+/**
+ * 회원
+ * username 조회는 NamedQuery 로 정의해서 시작할 때 한 번만 파싱한다. (MemberRepository.find)
+ */
 @Entity
 @Getter
 @Setter
+@NamedQuery(name = Member.FIND_BY_USERNAME, query = "select m from Member m where m.username = :username")
 public class Member {
 
+    public static final String FIND_BY_USERNAME = "Member.findByUsername";
+
     @Id @GeneratedValue
     private Long id;
     private String username;
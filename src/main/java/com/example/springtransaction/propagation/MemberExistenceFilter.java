@@ -0,0 +1,153 @@
+package com.example.springtransaction.propagation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 가입된 username 의 블룸 필터 (UsernameBloomFilter)
+ * 중복 가입 확인(MemberService.isUsernameTaken)은 대부분 없는 username 이므로, 필터가 '없음'이라고 하면 DB를 조회하지 않는다.
+ *
+ * - 시작할 때 member 테이블의 username 을 스트리밍으로 읽어서 채운다. (엔티티를 만들지 않는다)
+ * - 가입 트랜잭션이 커밋된 후(afterCommit)에만 추가한다. 롤백된 가입은 추가되지 않는다.
+ * - 직접 insert 한 회원(DataSeeder)은 rebuild 로 다시 채운다.
+ */
+@Slf4j
+@Component
+public class MemberExistenceFilter {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MemberRepository memberRepository; // member 테이블이 만들어진 뒤에 초기화되도록 의존한다.
+    private final long expectedInsertions;
+    private final double fpp;
+    private final int fetchSize;
+
+    private volatile UsernameBloomFilter filter;
+    private volatile UsernameBloomFilter rebuilding; // rebuild 중에 커밋된 가입도 새 필터에 추가한다.
+
+    private final LongAdder negatives = new LongAdder();
+    private final LongAdder positives = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    public MemberExistenceFilter(JdbcTemplate jdbcTemplate,
+                                 MemberRepository memberRepository,
+                                 @Value("${member.bloom.expected-insertions:1000000}") long expectedInsertions,
+                                 @Value("${member.bloom.fpp:0.01}") double fpp,
+                                 @Value("${member.bloom.fetch-size:10000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.memberRepository = memberRepository;
+        this.expectedInsertions = expectedInsertions;
+        this.fpp = fpp;
+        this.fetchSize = fetchSize;
+    }
+
+    @PostConstruct
+    public void init() {
+        rebuild();
+    }
+
+    /**
+     * member 테이블 전체로 필터를 다시 만들어서 교체한다.
+     */
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        long members = jdbcTemplate.queryForObject("select count(*) from member", Long.class);
+        UsernameBloomFilter next = new UsernameBloomFilter(Math.max(expectedInsertions, members * 2), fpp);
+        rebuilding = next;
+        try {
+            JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+            streaming.setFetchSize(fetchSize);
+            streaming.query("select username from member", (RowCallbackHandler) rs -> {
+                String username = rs.getString(1);
+                if (username != null) {
+                    next.put(username);
+                }
+            });
+            filter = next;
+        } finally {
+            rebuilding = null;
+        }
+        log.info("회원 블룸 필터 생성 members={}, memory={}bytes, k={}, expectedFpp={}, {}ms",
+                members, next.memoryBytes(), next.getHashCount(), next.expectedFpp(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * false 이면 확실히 가입되지 않은 username 이다.
+     */
+    public boolean mightExist(String username) {
+        if (filter.mightContain(username)) {
+            positives.increment();
+            return true;
+        }
+        negatives.increment();
+        return false;
+    }
+
+    /**
+     * mightExist 가 true 였지만 DB에 없었던 경우 기록한다.
+     */
+    public void recordFalsePositive() {
+        falsePositives.increment();
+    }
+
+    /**
+     * 진행중인 트랜잭션이 커밋된 후에 추가한다. 트랜잭션이 없으면 바로 추가한다.
+     */
+    public void addAfterCommit(String username) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            add(username);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                add(username);
+            }
+        });
+    }
+
+    // rebuilding 을 먼저 읽는다. null 이면 이 가입은 rebuild 의 스트리밍 조회 이전에 커밋된 것이므로 조회에 포함된다.
+    private void add(String username) {
+        UsernameBloomFilter next = rebuilding;
+        filter.put(username);
+        if (next != null) {
+            next.put(username);
+        }
+    }
+
+    /**
+     * 실제로 관측한 거짓 양성 비율 = DB에 없었던 수 / (필터가 '없음'이라고 한 수 + DB에 없었던 수)
+     */
+    public double getObservedFpp() {
+        long absent = negatives.sum() + falsePositives.sum();
+        return absent == 0 ? 0 : (double) falsePositives.sum() / absent;
+    }
+
+    public double getExpectedFpp() {
+        return filter.expectedFpp();
+    }
+
+    public long getMemoryBytes() {
+        return filter.memoryBytes();
+    }
+
+    public long getApproximateElementCount() {
+        return filter.approximateElementCount();
+    }
+
+    public long getNegativeCount() {
+        return negatives.sum();
+    }
+
+    public long getPositiveCount() {
+        return positives.sum();
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.springtransaction.propagation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 회원 가입 묶음 처리 (group commit)
+ * 짧은 시간(window) 동안 들어온 가입 요청을 최대 maxBatchSize 건까지 모아서 하나의 물리 트랜잭션으로 저장한다.
+ * -> 요청마다 트랜잭션 시작/커밋을 반복하지 않고, 쓰기 지연 저장소의 insert 를 한번에 flush 한다.
+ *    DB로그는 엔티티가 아니므로 묶음의 로그를 모아서 버킷별 JDBC batch 로 저장한다.
+ *
+ * 호출한 쪽은 CompletableFuture 로 자신의 요청 결과(성공/실패)를 각각 받는다.
+ * 묶음 트랜잭션이 실패하면 전체를 롤백하고 절반으로 나누어 다시 시도한다.
+ * -> '로그예외' 회원 하나 때문에 같은 묶음의 다른 회원까지 실패하지 않는다.
+ *
+ * member.join.batch.enabled=true 일 때만 동작한다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "member.join.batch.enabled", havingValue = "true")
+public class MemberJoinBatcher {
+
+    private final MemberRepository memberRepository;
+    private final LogRepository logRepository;
+    private final MemberExistenceFilter memberExistenceFilter;
+    private final TransactionTemplate txTemplate;
+    private final long windowNanos;
+    private final int maxBatchSize;
+
+    private final BlockingQueue<JoinRequest> queue = new LinkedBlockingQueue<>();
+    private volatile boolean running;
+    private volatile boolean stopped; // 배치 스레드가 끝나서 더 이상 큐를 읽지 않는다.
+    private Thread worker;
+
+    public MemberJoinBatcher(MemberRepository memberRepository,
+                             LogRepository logRepository,
+                             MemberExistenceFilter memberExistenceFilter,
+                             PlatformTransactionManager txManager,
+                             @Value("${member.join.batch.window-millis:5}") long windowMillis,
+                             @Value("${member.join.batch.max-size:100}") int maxBatchSize) {
+        this.memberRepository = memberRepository;
+        this.logRepository = logRepository;
+        this.memberExistenceFilter = memberExistenceFilter;
+        this.txTemplate = new TransactionTemplate(txManager);
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker = new Thread(this::run, "member-join-batcher");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        worker.join();
+        failLeftovers(new IllegalStateException("MemberJoinBatcher 가 종료되었습니다."));
+    }
+
+    /**
+     * joinV1 과 같이 회원과 DB로그를 함께 남긴다.
+     * 실제 저장은 다른 요청들과 묶여서 배치 스레드에서 수행된다.
+     */
+    public CompletableFuture<Void> join(String username) {
+        JoinRequest request = new JoinRequest(username);
+        if (!running) {
+            request.result.completeExceptionally(new IllegalStateException("MemberJoinBatcher 가 종료되었습니다."));
+            return request.result;
+        }
+        queue.add(request);
+        // running 확인과 add 사이에 배치 스레드가 끝났으면 아무도 이 요청을 처리하지 않는다.
+        if (stopped) {
+            failLeftovers(new IllegalStateException("MemberJoinBatcher 가 종료되었습니다."));
+        }
+        return request.result;
+    }
+
+    private void run() {
+        List<JoinRequest> batch = new ArrayList<>(maxBatchSize);
+        // 종료 요청이 와도 이미 받은 요청은 모두 처리하고 끝낸다.
+        while (running || !queue.isEmpty()) {
+            try {
+                JoinRequest first = queue.poll(windowNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                collect(batch);
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+                batch.forEach(request -> request.result.completeExceptionally(e));
+                failLeftovers(e);
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 배치 스레드가 끝난 뒤에 남은 요청을 실패 처리한다.
+     * stopped 를 먼저 기록하므로, 이후에 add 한 스레드는 stopped 를 보고 직접 이 메서드를 호출한다.
+     */
+    private void failLeftovers(Throwable cause) {
+        stopped = true;
+        JoinRequest request;
+        while ((request = queue.poll()) != null) {
+            request.result.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * 첫 요청이 들어온 시점부터 window 가 지나거나 maxBatchSize 가 찰 때까지 요청을 모은다.
+     */
+    private void collect(List<JoinRequest> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + windowNanos;
+        while (batch.size() < maxBatchSize) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            JoinRequest next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    /**
+     * 묶음 전체를 하나의 트랜잭션으로 저장한다.
+     * 실패하면 묶음을 둘로 나누어 각각 다시 시도하고, 한 건만 남았을 때 실패하면 그 요청만 실패 처리한다.
+     */
+    private void commit(List<JoinRequest> batch) {
+        try {
+            txTemplate.executeWithoutResult(status -> {
+                List<Log> logs = new ArrayList<>(batch.size());
+                batch.forEach(request -> logs.add(persist(request)));
+                logRepository.persistAll(logs);
+            });
+            batch.forEach(request -> request.result.complete(null));
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                log.info("회원 가입 실패 username={}", batch.get(0).username);
+                batch.get(0).result.completeExceptionally(e);
+                return;
+            }
+            log.info("묶음 저장 실패, 나누어서 재시도 size={}", batch.size());
+            int mid = batch.size() / 2;
+            commit(batch.subList(0, mid));
+            commit(batch.subList(mid, batch.size()));
+        }
+    }
+
+    // 롤백 후 재시도할 때 영속 상태가 남지 않도록 시도할 때마다 엔티티를 새로 만든다.
+    // 로그는 묶음 전체를 모아서 버킷별 JDBC batch 로 저장한다. (LogRepository.persistAll)
+    private Log persist(JoinRequest request) {
+        Member member = new Member(request.username);
+        memberRepository.save(member);
+        memberExistenceFilter.addAfterCommit(request.username);
+        return new Log(request.username);
+    }
+
+    private static class JoinRequest {
+        private final String username;
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        private JoinRequest(String username) {
+            this.username = username;
+        }
+    }
+}
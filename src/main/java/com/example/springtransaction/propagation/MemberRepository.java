@@ -1,5 +1,6 @@
 package com.example.springtransaction.propagation;
 
+import com.example.springtransaction.outbox.Outbox;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Repository;
@@ -14,15 +15,21 @@ import java.util.Optional;
 public class MemberRepository {
 
     private final EntityManager em;
+    private final Outbox outbox;
 
+    /**
+     * 회원과 가입 이벤트(outbox)를 같은 트랜잭션에 저장한다.
+     * 서비스에 트랜잭션이 없어도(outerTxOff) 이 메서드의 트랜잭션에서 함께 커밋되거나 함께 롤백된다.
+     */
     @Transactional
     public void save(Member member) {
         log.info("member 저장");
         em.persist(member);
+        outbox.append("Member", member.getId(), "MemberJoined", Outbox.json("username", member.getUsername()));
     }
 
     public Optional<Member> find(String username) {
-        return em.createQuery("select m from Member m where m.username=:username", Member.class)
+        return em.createNamedQuery(Member.FIND_BY_USERNAME, Member.class)
                 .setParameter("username", username)
                 .getResultList().stream().findAny();
     }
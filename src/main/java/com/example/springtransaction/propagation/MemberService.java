@@ -1,7 +1,9 @@
 package com.example.springtransaction.propagation;
 
+import com.example.springtransaction.bulkhead.Bulkhead;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -12,11 +14,29 @@ public class MemberService {
 
     private final MemberRepository memberRepository;
     private final LogRepository logRepository;
+    private final ObjectProvider<LogWriter> logWriter;
+    private final MemberExistenceFilter memberExistenceFilter;
+
+    /**
+     * 가입 전 중복 확인
+     * 블룸 필터가 '없음'이라고 하면 DB를 조회하지 않는다.
+     */
+    public boolean isUsernameTaken(String username) {
+        if (!memberExistenceFilter.mightExist(username)) {
+            return false;
+        }
+        boolean taken = memberRepository.find(username).isPresent();
+        if (!taken) {
+            memberExistenceFilter.recordFalsePositive();
+        }
+        return taken;
+    }
 
     /**
      * 회원과 DB로그를 함께 남기는 비지니스 로직이다.
      * @param username
      */
+    @Bulkhead("member-join")
     @Transactional
     public void joinV1(String username) {
         Member member = new Member(username);
@@ -24,6 +44,7 @@ public class MemberService {
 
         log.info("== memberRepository 호출 시작 == ");
         memberRepository.save(member);
+        memberExistenceFilter.addAfterCommit(username);
         log.info("== memberRepository 호출 종료 == ");
 
         log.info("== logRepository 호출 시작 == ");
@@ -33,6 +54,7 @@ public class MemberService {
 
     /**
      * DB로그 저장시 예외가 발생하면 예외를 복구한다.
+     * log.circuit.enabled=true 이면 로그 저장이 계속 실패할 때 서킷 브레이커가 열려서 DB 대신 spill 파일에 기록한다. (LogWriter)
      * @param username
      */
     @Transactional
@@ -42,14 +64,20 @@ public class MemberService {
 
         log.info("== memberRepository 호출 시작 == ");
         memberRepository.save(member);
+        memberExistenceFilter.addAfterCommit(username);
         log.info("== memberRepository 호출 종료 == ");
 
         log.info("== logRepository 호출 시작 == ");
-        try {
-            logRepository.save(logMessage);
-        } catch (RuntimeException e) {
-            log.info("log 저장에 실패했습니다. logMessage={}", logMessage.getMessage());
-            log.info("정상 흐름 변환");
+        LogWriter writer = logWriter.getIfAvailable();
+        if (writer != null) {
+            writer.write(logMessage);
+        } else {
+            try {
+                logRepository.save(logMessage);
+            } catch (RuntimeException e) {
+                log.info("log 저장에 실패했습니다. logMessage={}", logMessage.getMessage());
+                log.info("정상 흐름 변환");
+            }
         }
         log.info("== logRepository 호출 종료 == ");
     }
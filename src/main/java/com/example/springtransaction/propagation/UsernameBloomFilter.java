@@ -0,0 +1,114 @@
+package com.example.springtransaction.propagation;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * username 블룸 필터
+ * mightContain 이 false 이면 확실히 없는 username 이다. true 이면 있을 수도 있다. (거짓 양성)
+ *
+ * - 비트 배열은 long 배열(AtomicLongArray)이라서 여러 스레드가 락 없이 추가, 조회할 수 있다.
+ * - 해시 함수 k 개는 64비트 해시 하나를 두 개로 나눈 double hashing (h1 + i * h2) 으로 만든다.
+ * - 삭제는 지원하지 않는다.
+ */
+public class UsernameBloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitSize;
+    private final int hashCount;
+    private final LongAdder bitCount = new LongAdder();
+
+    /**
+     * @param expectedInsertions 예상 원소 수
+     * @param fpp                목표 거짓 양성 비율
+     */
+    public UsernameBloomFilter(long expectedInsertions, double fpp) {
+        long n = Math.max(1, expectedInsertions);
+        long m = (long) Math.ceil(-n * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        int longs = (int) Math.min(Integer.MAX_VALUE, (m + 63) / 64);
+        this.bits = new AtomicLongArray(longs);
+        this.bitSize = longs * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitSize / n * Math.log(2)));
+    }
+
+    public void put(String username) {
+        long hash = hash(username);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            set(index(h1 + i * h2));
+        }
+    }
+
+    public boolean mightContain(String username) {
+        long hash = hash(username);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = index(h1 + i * h2);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 현재 채워진 비트 비율로 계산한 거짓 양성 확률 (1이 된 비트 비율)^k
+     */
+    public double expectedFpp() {
+        return Math.pow((double) bitCount.sum() / bitSize, hashCount);
+    }
+
+    /**
+     * 1이 된 비트 수로 추정한 원소 수
+     */
+    public long approximateElementCount() {
+        double fraction = (double) bitCount.sum() / bitSize;
+        return Math.round(-Math.log1p(-fraction) * bitSize / hashCount);
+    }
+
+    public long memoryBytes() {
+        return bits.length() * 8L;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    private long index(int combined) {
+        // 음수가 되지 않도록 부호 비트를 뒤집는다.
+        return ((combined < 0) ? ~combined : combined) % bitSize;
+    }
+
+    private void set(long index) {
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+        while (true) {
+            long current = bits.get(word);
+            if ((current & mask) != 0) {
+                return;
+            }
+            if (bits.compareAndSet(word, current, current | mask)) {
+                bitCount.increment();
+                return;
+            }
+        }
+    }
+
+    // FNV-1a 64 + splitmix64 마무리 (비트를 고르게 섞는다)
+    private static long hash(String username) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : username.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 30;
+        hash *= 0xbf58476d1ce4e5b9L;
+        hash ^= hash >>> 27;
+        hash *= 0x94d049bb133111ebL;
+        hash ^= hash >>> 31;
+        return hash;
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.springtransaction.seed;
+
+import com.example.springtransaction.order.OrderStatusCounters;
+import com.example.springtransaction.propagation.LogBucketRouter;
+import com.example.springtransaction.propagation.MemberExistenceFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+
+/**
+ * 벤치마크, 용량 테스트용 대량 데이터 생성
+ * JPA 리포지토리로 한 건씩 저장하지 않고, H2 의 INSERT ... SELECT FROM SYSTEM_RANGE 로 DB 안에서 바로 생성한다.
+ * chunkSize 단위로 트랜잭션을 나누어 undo 로그가 커지지 않게 한다.
+ *
+ * id는 엔티티와 같은 hibernate_sequence 에서 한 번에 예약하고, 끝난 뒤 시퀀스를 마지막 id 다음으로 옮긴다.
+ * 시퀀스를 예약하는 동안 다른 저장이 일어나면 id가 겹칠 수 있으므로 트래픽이 없을 때 실행한다.
+ */
+@Slf4j
+@Component
+public class DataSeeder {
+
+    private static final String SEQUENCE = "hibernate_sequence";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate txTemplate;
+    private final OrderStatusCounters orderStatusCounters;
+    private final LogBucketRouter logBucketRouter;
+    private final MemberExistenceFilter memberExistenceFilter;
+
+    public DataSeeder(JdbcTemplate jdbcTemplate,
+                      PlatformTransactionManager txManager,
+                      OrderStatusCounters orderStatusCounters,
+                      LogBucketRouter logBucketRouter,
+                      MemberExistenceFilter memberExistenceFilter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.txTemplate = new TransactionTemplate(txManager);
+        this.orderStatusCounters = orderStatusCounters;
+        this.logBucketRouter = logBucketRouter;
+        this.memberExistenceFilter = memberExistenceFilter;
+    }
+
+    public void seed(SeedPlan plan) {
+        long start = System.nanoTime();
+        long firstId = reserveIds(plan.total());
+        long memberFirstId = firstId + plan.getOrders();
+        long logFirstId = memberFirstId + plan.getMembers();
+
+        jdbcTemplate.execute("set referential_integrity false");
+        try {
+            insertOrders(plan, firstId);
+            insertMembers(plan, memberFirstId);
+            insertLogs(plan, memberFirstId, logFirstId);
+        } finally {
+            jdbcTemplate.execute("set referential_integrity true");
+        }
+
+        // 직접 insert 한 주문, 회원은 afterCommit 으로 반영되지 않았으므로 카운터와 블룸 필터를 DB에 맞춘다.
+        orderStatusCounters.reconcile();
+        memberExistenceFilter.rebuild();
+        log.info("데이터 생성 완료 orders={}, members={}, logs={}, {}ms", plan.getOrders(), plan.getMembers(),
+                plan.getMembers(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * [firstId, firstId + count) 를 예약하고 시퀀스를 그 다음 값으로 옮긴다.
+     */
+    private long reserveIds(long count) {
+        long firstId = jdbcTemplate.queryForObject("select next value for " + SEQUENCE, Long.class);
+        jdbcTemplate.execute("alter sequence " + SEQUENCE + " restart with " + (firstId + count));
+        return firstId;
+    }
+
+    private void insertOrders(SeedPlan plan, long firstId) {
+        String sql = "insert into orders (id, username, pay_status, ordered_at)" +
+                " select x, concat('user', mod(x, cast(? as bigint))), case when rand() < cast(? as double) then '완료' else '대기' end," +
+                " dateadd('SECOND', -cast(rand() * ? as bigint), current_timestamp)" +
+                " from system_range(?, ?)";
+        long maxAgeSeconds = plan.getOrderAgeDays() * 86_400L;
+        inChunks(plan, "orders", firstId, plan.getOrders(), (from, to) ->
+                jdbcTemplate.update(sql, plan.getUsernameCardinality(), plan.getCompletedRatio(), maxAgeSeconds, from, to));
+    }
+
+    private void insertMembers(SeedPlan plan, long firstId) {
+        String sql = "insert into member (id, username) select x, concat('member', x) from system_range(?, ?)";
+        inChunks(plan, "member", firstId, plan.getMembers(), (from, to) -> jdbcTemplate.update(sql, from, to));
+    }
+
+    // 회원 가입 로그, message 는 회원 username 과 같다. 모두 오늘 버킷에 저장한다.
+    private void insertLogs(SeedPlan plan, long memberFirstId, long firstId) {
+        long offset = firstId - memberFirstId;
+        String table = logBucketRouter.ensureBucket(LocalDate.now());
+        String sql = "insert into " + table + " (id, message, created_at)" +
+                " select x, concat('member', x - cast(? as bigint)), current_timestamp from system_range(?, ?)";
+        inChunks(plan, table, firstId, plan.getMembers(), (from, to) -> jdbcTemplate.update(sql, offset, from, to));
+    }
+
+    private void inChunks(SeedPlan plan, String table, long firstId, long count, ChunkInsert insert) {
+        long lastId = firstId + count - 1;
+        for (long from = firstId; from <= lastId; from += plan.getChunkSize()) {
+            long to = Math.min(from + plan.getChunkSize() - 1, lastId);
+            long chunkFrom = from;
+            txTemplate.executeWithoutResult(status -> insert.insert(chunkFrom, to));
+            log.debug("{} {} ~ {} 생성", table, chunkFrom, to);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ChunkInsert {
+        void insert(long from, long to);
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.springtransaction.seed;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 생성할 데이터 양과 분포
+ */
+@Getter
+@Setter
+public class SeedPlan {
+
+    private long orders;
+    private long members;                // 회원 한 명당 가입 로그가 하나씩 생성된다.
+    private double completedRatio = 0.9; // 주문 중 '완료' 비율, 나머지는 '대기'
+    private long usernameCardinality = 10_000; // 주문 username 종류 수
+    private int chunkSize = 100_000;     // 한 트랜잭션에서 insert 할 행 수
+    private int orderAgeDays = 90;       // 주문 시각(ordered_at)은 최근 orderAgeDays 일 안에 고르게 분포한다.
+
+    public long total() {
+        return orders + members * 2;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.springtransaction.seed;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * 애플리케이션 시작 시 대량 데이터 생성 (./gradlew seed)
+ * seed.enabled=true 일 때만 동작한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "seed.enabled", havingValue = "true")
+public class SeedRunner implements ApplicationRunner {
+
+    private final DataSeeder dataSeeder;
+    private final ConfigurableApplicationContext context;
+
+    @Value("${seed.orders:10000000}")
+    private long orders;
+    @Value("${seed.members:1000000}")
+    private long members;
+    @Value("${seed.completed-ratio:0.9}")
+    private double completedRatio;
+    @Value("${seed.username-cardinality:10000}")
+    private long usernameCardinality;
+    @Value("${seed.chunk-size:100000}")
+    private int chunkSize;
+    @Value("${seed.order-age-days:90}")
+    private int orderAgeDays;
+    @Value("${seed.exit:false}")
+    private boolean exit;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        SeedPlan plan = new SeedPlan();
+        plan.setOrders(orders);
+        plan.setMembers(members);
+        plan.setCompletedRatio(completedRatio);
+        plan.setUsernameCardinality(usernameCardinality);
+        plan.setChunkSize(chunkSize);
+        plan.setOrderAgeDays(orderAgeDays);
+        dataSeeder.seed(plan);
+
+        if (exit) {
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+}
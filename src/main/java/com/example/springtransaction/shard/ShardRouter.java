@@ -0,0 +1,36 @@
+package com.example.springtransaction.shard;
+
+/**
+ * shard 결정
+ * - 주문 : username 해시 -> 같은 사용자의 주문은 항상 같은 shard 에 저장된다.
+ * - id : id 의 나머지가 shard 번호이다. (ShardedOrderRepository 가 id를 그렇게 만든다)
+ */
+public class ShardRouter {
+
+    private final int shardCount;
+
+    public ShardRouter(int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("shardCount 는 1 이상이어야 합니다. shardCount=" + shardCount);
+        }
+        this.shardCount = shardCount;
+    }
+
+    public int shardOf(String username) {
+        // String.hashCode 의 하위 비트는 고르지 않으므로 섞어서 사용한다.
+        int hash = username.hashCode() * 0x9E3779B9;
+        return Math.floorMod(hash ^ (hash >>> 16), shardCount);
+    }
+
+    public int shardOfId(long id) {
+        return (int) Math.floorMod(id, (long) shardCount);
+    }
+
+    public long toId(long localId, int shard) {
+        return localId * shardCount + shard;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+}
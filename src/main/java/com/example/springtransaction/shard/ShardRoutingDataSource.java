@@ -0,0 +1,65 @@
+package com.example.springtransaction.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 현재 스레드의 shard 번호(ShardTransactions)로 커넥션을 가져오는 DataSource
+ * 트랜잭션 매니저가 트랜잭션 시작 시점에 한 번 커넥션을 가져오므로 트랜잭션은 하나의 shard 에 고정된다.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final ThreadLocal<Integer> currentShard = new ThreadLocal<>();
+
+    private final List<HikariDataSource> shards;
+
+    public ShardRoutingDataSource(List<HikariDataSource> shards) {
+        this.shards = new ArrayList<>(shards);
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            targets.put(i, shards.get(i));
+        }
+        setTargetDataSources(targets);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Integer shard = currentShard.get();
+        if (shard == null) {
+            throw new IllegalStateException("shard 가 지정되지 않았습니다.");
+        }
+        return shard;
+    }
+
+    public DataSource getShard(int shard) {
+        return shards.get(shard);
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    public void close() {
+        shards.forEach(HikariDataSource::close);
+    }
+
+    static Integer currentShard() {
+        return currentShard.get();
+    }
+
+    static void setCurrentShard(Integer shard) {
+        if (shard == null) {
+            currentShard.remove();
+        } else {
+            currentShard.set(shard);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.springtransaction.shard;
+
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 하나의 shard 에 고정된 트랜잭션
+ * shard 번호를 지정하고 트랜잭션을 시작하면, 트랜잭션이 끝날 때까지 같은 shard 커넥션을 사용한다.
+ * 진행중인 shard 트랜잭션 안에서 다른 shard 트랜잭션을 시작하면 예외가 발생한다. (분산 트랜잭션은 지원하지 않는다)
+ *
+ * DataSourceTransactionManager 를 빈으로 등록하면 스프링 부트가 JpaTransactionManager 를 자동 구성하지 않으므로 내부에서만 사용한다.
+ */
+public class ShardTransactions {
+
+    private final ShardRoutingDataSource dataSource;
+    private final TransactionTemplate txTemplate;
+    private final TransactionTemplate readOnlyTxTemplate;
+
+    public ShardTransactions(ShardRoutingDataSource dataSource) {
+        this.dataSource = dataSource;
+        DataSourceTransactionManager txManager = new DataSourceTransactionManager(dataSource);
+        this.txTemplate = new TransactionTemplate(txManager);
+        this.readOnlyTxTemplate = new TransactionTemplate(txManager);
+        this.readOnlyTxTemplate.setReadOnly(true);
+    }
+
+    public <T> T execute(int shard, TransactionCallback<T> action) {
+        return execute(txTemplate, shard, action);
+    }
+
+    public <T> T executeReadOnly(int shard, TransactionCallback<T> action) {
+        return execute(readOnlyTxTemplate, shard, action);
+    }
+
+    public ShardRoutingDataSource getDataSource() {
+        return dataSource;
+    }
+
+    private <T> T execute(TransactionTemplate template, int shard, TransactionCallback<T> action) {
+        Integer previous = ShardRoutingDataSource.currentShard();
+        if (previous != null && previous != shard && TransactionSynchronizationManager.hasResource(dataSource)) {
+            throw new IllegalStateException("다른 shard 의 트랜잭션이 진행중입니다. current=" + previous + ", requested=" + shard);
+        }
+        ShardRoutingDataSource.setCurrentShard(shard);
+        try {
+            return template.execute(action);
+        } finally {
+            ShardRoutingDataSource.setCurrentShard(previous);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.springtransaction.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * shard 주문 저장소 구성 (order.shard.enabled=true)
+ * shard 마다 별도의 H2 데이터베이스(order.shard.url-pattern)와 커넥션 풀을 둔다.
+ *
+ * shard DataSource 와 트랜잭션 매니저는 빈으로 등록하지 않고 ShardedOrderService 안에서만 사용한다.
+ * -> 빈으로 등록하면 스프링 부트가 기본 DataSource, JpaTransactionManager 를 자동 구성하지 않는다. (ReactiveOrderConfig 와 같은 이유)
+ * shard 수 x pool-size 만큼 커넥션을 열고 scatter 스레드를 만들기 때문에 기본은 꺼져있다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "order.shard.enabled", havingValue = "true")
+public class ShardedOrderConfig {
+
+    @Bean
+    public ShardedOrderService shardedOrderService(@Value("${order.shard.count:4}") int shardCount,
+                                                   @Value("${order.shard.url-pattern:jdbc:h2:mem:orders-shard-%d;DB_CLOSE_DELAY=-1}") String urlPattern,
+                                                   @Value("${order.shard.pool-size:10}") int poolSize) {
+        List<HikariDataSource> shards = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("orders-shard-" + shard);
+            dataSource.setJdbcUrl(String.format(urlPattern, shard));
+            dataSource.setUsername("sa");
+            dataSource.setMaximumPoolSize(poolSize);
+            shards.add(dataSource);
+        }
+        ShardRoutingDataSource dataSource = new ShardRoutingDataSource(shards);
+        ShardedOrderRepository.createTables(dataSource);
+
+        ShardRouter router = new ShardRouter(shardCount);
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService scatterExecutor = Executors.newFixedThreadPool(shardCount, runnable -> {
+            Thread thread = new Thread(runnable, "order-shard-scatter-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        return new ShardedOrderService(router,
+                new ShardTransactions(dataSource),
+                new ShardedOrderRepository(dataSource, router),
+                scatterExecutor);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.springtransaction.shard;
+
+import com.example.springtransaction.order.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * shard 주문 리포지토리
+ * 현재 shard 트랜잭션(ShardTransactions)의 커넥션으로 실행된다.
+ *
+ * id = shard 별 시퀀스 * shardCount + shard 번호
+ * -> shard 끼리 id가 겹치지 않고, id 만으로 shard 를 찾을 수 있다.
+ */
+public class ShardedOrderRepository {
+
+    private static final RowMapper<Order> ORDER_ROW_MAPPER = (rs, rowNum) -> {
+        Order order = new Order();
+        order.setId(rs.getLong("id"));
+        order.setUsername(rs.getString("username"));
+        order.setPayStatus(rs.getString("pay_status"));
+        Timestamp orderedAt = rs.getTimestamp("ordered_at");
+        order.setOrderedAt(orderedAt == null ? null : orderedAt.toLocalDateTime());
+        return order;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter router;
+
+    public ShardedOrderRepository(ShardRoutingDataSource dataSource, ShardRouter router) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.router = router;
+    }
+
+    /**
+     * 각 shard 에 테이블을 만든다. shard 트랜잭션 밖에서 shard DataSource 로 직접 실행한다.
+     */
+    static void createTables(ShardRoutingDataSource dataSource) {
+        for (int shard = 0; shard < dataSource.getShardCount(); shard++) {
+            JdbcTemplate shardTemplate = new JdbcTemplate(dataSource.getShard(shard));
+            shardTemplate.execute("create sequence if not exists orders_seq");
+            shardTemplate.execute("create table if not exists orders (" +
+                    "id bigint primary key, username varchar(255), pay_status varchar(255), ordered_at timestamp)");
+            shardTemplate.execute("create index if not exists orders_username on orders (username)");
+        }
+    }
+
+    public void insert(Order order, int shard) {
+        long localId = jdbcTemplate.queryForObject("select next value for orders_seq", Long.class);
+        if (order.getOrderedAt() == null) {
+            order.setOrderedAt(LocalDateTime.now());
+        }
+        order.setId(router.toId(localId, shard));
+        jdbcTemplate.update("insert into orders (id, username, pay_status, ordered_at) values (?, ?, ?, ?)",
+                order.getId(), order.getUsername(), order.getPayStatus(), Timestamp.valueOf(order.getOrderedAt()));
+    }
+
+    public Optional<Order> findById(long id) {
+        return jdbcTemplate.query("select id, username, pay_status, ordered_at from orders where id = ?", ORDER_ROW_MAPPER, id)
+                .stream().findAny();
+    }
+
+    public List<Order> findByUsername(String username) {
+        return jdbcTemplate.query("select id, username, pay_status, ordered_at from orders where username = ? order by id",
+                ORDER_ROW_MAPPER, username);
+    }
+
+    public Map<String, Long> countByPayStatus() {
+        Map<String, Long> counts = new HashMap<>();
+        jdbcTemplate.query("select pay_status, count(*) from orders where pay_status is not null group by pay_status",
+                rs -> {
+                    counts.put(rs.getString(1), rs.getLong(2));
+                });
+        return counts;
+    }
+}
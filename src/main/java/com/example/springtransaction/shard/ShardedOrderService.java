@@ -0,0 +1,115 @@
+package com.example.springtransaction.shard;
+
+import com.example.springtransaction.order.NotEnoughMoneyException;
+import com.example.springtransaction.order.Order;
+import com.example.springtransaction.order.PayResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.IntFunction;
+
+/**
+ * username 해시로 shard 를 나눈 주문 처리
+ * username에 따른 처리와 커밋, 롤백 규칙은 OrderService.order 와 같다.
+ * 예외 : 롤백 후 RuntimeException("시스템 예외")
+ * 잔고부족 : payStatus 를 '대기' 로 커밋한 뒤 NotEnoughMoneyException
+ *
+ * 주문 하나는 하나의 shard 트랜잭션에서 처리된다.
+ * 여러 shard 를 읽는 조회는 shard 마다 병렬로 실행하고 결과를 합친다. (scatter-gather)
+ */
+@Slf4j
+public class ShardedOrderService implements DisposableBean {
+
+    private final ShardRouter router;
+    private final ShardTransactions shardTransactions;
+    private final ShardedOrderRepository orderRepository;
+    private final ExecutorService scatterExecutor;
+
+    public ShardedOrderService(ShardRouter router,
+                               ShardTransactions shardTransactions,
+                               ShardedOrderRepository orderRepository,
+                               ExecutorService scatterExecutor) {
+        this.router = router;
+        this.shardTransactions = shardTransactions;
+        this.orderRepository = orderRepository;
+        this.scatterExecutor = scatterExecutor;
+    }
+
+    public void order(Order order) throws NotEnoughMoneyException {
+        int shard = router.shardOf(order.getUsername());
+        PayResult result = shardTransactions.execute(shard, status -> {
+            log.info("order 호출 shard={}", shard);
+            PayResult payResult = PayResult.of(order.getUsername());
+            order.setPayStatus(payResult.getPayStatus());
+            orderRepository.insert(order, shard);
+            if (!payResult.isCommit()) {
+                status.setRollbackOnly();
+            }
+            return payResult;
+        });
+
+        if (result == PayResult.FAILED) {
+            log.info("시스템 예외 발생");
+            throw new RuntimeException("시스템 예외");
+        } else if (result == PayResult.PENDING) {
+            log.info("잔고 부족 비지니스 예외 발생");
+            throw new NotEnoughMoneyException("잔고가 부족합니다.");
+        }
+        log.info("결제 프로세스 완료");
+    }
+
+    public Optional<Order> findById(long id) {
+        int shard = router.shardOfId(id);
+        return shardTransactions.executeReadOnly(shard, status -> orderRepository.findById(id));
+    }
+
+    // username 이 shard 키이므로 하나의 shard 만 읽는다.
+    public List<Order> findByUsername(String username) {
+        int shard = router.shardOf(username);
+        return shardTransactions.executeReadOnly(shard, status -> orderRepository.findByUsername(username));
+    }
+
+    public Map<String, Long> countByPayStatus() {
+        Map<String, Long> counts = new HashMap<>();
+        for (Map<String, Long> shardCounts : scatter(shard -> orderRepository.countByPayStatus())) {
+            shardCounts.forEach((payStatus, count) -> counts.merge(payStatus, count, Long::sum));
+        }
+        return counts;
+    }
+
+    /**
+     * 모든 shard 에서 병렬로 읽기 트랜잭션을 실행한다.
+     */
+    private <T> List<T> scatter(IntFunction<T> query) {
+        List<CompletableFuture<T>> futures = new ArrayList<>(router.getShardCount());
+        for (int shard = 0; shard < router.getShardCount(); shard++) {
+            int target = shard;
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> shardTransactions.executeReadOnly(target, status -> query.apply(target)), scatterExecutor));
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        futures.forEach(future -> results.add(future.join()));
+        return results;
+    }
+
+    ShardTransactions getShardTransactions() {
+        return shardTransactions;
+    }
+
+    public int getShardCount() {
+        return router.getShardCount();
+    }
+
+    @Override
+    public void destroy() {
+        scatterExecutor.shutdownNow();
+        shardTransactions.getDataSource().close();
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.springtransaction.startup;
+
+import com.example.springtransaction.propagation.LogWriter;
+import com.example.springtransaction.propagation.MemberExistenceFilter;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.transaction.TransactionManager;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+/**
+ * 시작 시간 최적화 프로필 (spring.profiles.active=startup, application-startup.properties)
+ * 모든 빈을 지연 초기화하되, 첫 트랜잭션과 백그라운드 작업에 필요한 빈은 바로 만든다.
+ * - DataSource, EntityManagerFactory, 트랜잭션 매니저 : 첫 트랜잭션에서 JPA 부트스트랩을 기다리지 않는다.
+ *   EntityManagerFactory 는 시작 스레드에서 만든다. (리포지토리 bootstrap-mode 는 기본값)
+ * - @Scheduled 메서드가 있는 빈은 스프링 부트(ScheduledBeanLazyInitializationExcludeFilter)가 제외하므로 여기서 다루지 않는다.
+ * - LogWriter (log.circuit.enabled=true) : 시작할 때 남아있는 spill 로그를 재처리한다.
+ * - MemberExistenceFilter : 첫 중복 확인 전에 채워져 있어야 한다.
+ */
+@Configuration
+@Profile("startup")
+public class StartupConfig {
+
+    @Bean
+    public static LazyInitializationExcludeFilter criticalBeansExcludeFilter() {
+        return (beanName, beanDefinition, beanType) ->
+                DataSource.class.isAssignableFrom(beanType)
+                        || EntityManagerFactory.class.isAssignableFrom(beanType)
+                        || TransactionManager.class.isAssignableFrom(beanType)
+                        || LogWriter.class.isAssignableFrom(beanType)
+                        || MemberExistenceFilter.class.isAssignableFrom(beanType);
+    }
+}
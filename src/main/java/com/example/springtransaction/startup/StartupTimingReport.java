@@ -0,0 +1,134 @@
+package com.example.springtransaction.startup;
+
+import com.example.springtransaction.order.OrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 시작 시간 보고서 (startup 프로필)
+ * JVM 시작부터 첫 트랜잭션 커밋까지를 단계별로 나누어 기록한다.
+ *
+ * - 단계별 시간은 BufferingApplicationStartup 에 기록된 StartupStep 이다. (-Dstartup.report=true 로 실행해야 기록된다)
+ *   같은 이름의 단계는 합산하고, 빈 생성(spring.beans.instantiate)은 오래 걸린 빈 순서로 남긴다.
+ *   빈 생성 시간은 의존하는 빈의 생성 시간을 포함한다.
+ * - 결과는 key=value 형식으로 startup.report-file 에 저장한다. 릴리스마다 비교할 수 있다.
+ * - startup.exit=true 이면 보고서를 남기고 종료한다. (AppCDS 학습 실행, ./gradlew cdsTrain)
+ */
+@Slf4j
+@Component
+@Profile("startup")
+public class StartupTimingReport {
+
+    private static final String BEAN_INSTANTIATE = "spring.beans.instantiate";
+
+    private final ConfigurableApplicationContext context;
+    private final TransactionTemplate txTemplate;
+    private final OrderRepository orderRepository;
+    private final Path reportFile;
+    private final int topBeans;
+    private final boolean exit;
+
+    public StartupTimingReport(ConfigurableApplicationContext context,
+                               PlatformTransactionManager txManager,
+                               OrderRepository orderRepository,
+                               @Value("${startup.report-file:build/startup-report.properties}") String reportFile,
+                               @Value("${startup.top-beans:20}") int topBeans,
+                               @Value("${startup.exit:false}") boolean exit) {
+        this.context = context;
+        this.txTemplate = new TransactionTemplate(txManager);
+        this.orderRepository = orderRepository;
+        this.reportFile = Paths.get(reportFile);
+        this.topBeans = topBeans;
+        this.exit = exit;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void report() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("jvm.ready.ms", ManagementFactory.getRuntimeMXBean().getUptime());
+
+        long start = System.nanoTime();
+        txTemplate.executeWithoutResult(status -> orderRepository.count());
+        report.put("first-transaction.ms", (System.nanoTime() - start) / 1_000_000);
+        report.put("jvm.first-transaction.ms", ManagementFactory.getRuntimeMXBean().getUptime());
+
+        ApplicationStartup startup = context.getApplicationStartup();
+        if (startup instanceof BufferingApplicationStartup) {
+            addSteps(report, ((BufferingApplicationStartup) startup).getBufferedTimeline());
+        } else {
+            log.info("단계별 시간은 -Dstartup.report=true 로 실행해야 기록됩니다.");
+        }
+
+        StringBuilder lines = new StringBuilder();
+        report.forEach((key, value) -> lines.append(key).append('=').append(value).append('\n'));
+        log.info("시작 시간 보고서\n{}", lines);
+        write(lines.toString());
+
+        if (exit) {
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+
+    private void addSteps(Map<String, Object> report, StartupTimeline timeline) {
+        Map<String, Long> byStep = new TreeMap<>();
+        List<StartupTimeline.TimelineEvent> beans = new ArrayList<>();
+        for (StartupTimeline.TimelineEvent event : timeline.getEvents()) {
+            String name = event.getStartupStep().getName();
+            byStep.merge(name, event.getDuration().toMillis(), Long::sum);
+            if (BEAN_INSTANTIATE.equals(name)) {
+                beans.add(event);
+            }
+        }
+        byStep.forEach((name, millis) -> report.put("step." + name + ".ms", millis));
+
+        beans.sort(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration, Comparator.<Duration>reverseOrder()));
+        beans.stream().limit(topBeans).forEach(event ->
+                report.put("bean." + beanName(event.getStartupStep()) + ".ms", event.getDuration().toMillis()));
+    }
+
+    private static String beanName(StartupStep step) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if ("beanName".equals(tag.getKey())) {
+                return tag.getValue();
+            }
+        }
+        return "unknown";
+    }
+
+    private void write(String report) {
+        try {
+            if (reportFile.getParent() != null) {
+                Files.createDirectories(reportFile.getParent());
+            }
+            Files.writeString(reportFile, report);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.springtransaction.attribute;
+
+import com.example.springtransaction.SpringtransactionApplication;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttributeSource;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 트랜잭션 속성 조회와 롤백 규칙 판단 비용
+ * - 호출마다 : 스프링 기본(AnnotationTransactionAttributeSource 캐시) vs 인덱스
+ * - 시작 시간 : tx.attribute-index.enabled true / false
+ */
+@Slf4j
+@Tag("benchmark")
+class TransactionAttributeIndexBenchmarkTest {
+
+    private static final int CALLS = 10_000_000;
+
+    @Test
+    void perInvocation() throws NoSuchMethodException {
+        AnnotationTransactionAttributeSource spring = new AnnotationTransactionAttributeSource();
+        IndexedTransactionAttributeSource indexed = new IndexedTransactionAttributeSource(new AnnotationTransactionAttributeSource());
+        Method method = BenchmarkService.class.getMethod("order");
+
+        for (int i = 0; i < 3; i++) {
+            measure("spring", spring, method);
+            measure("indexed", indexed, method);
+        }
+    }
+
+    @Test
+    void startup() {
+        for (int i = 0; i < 3; i++) {
+            startupMillis(false);
+            startupMillis(true);
+        }
+    }
+
+    private void measure(String name, TransactionAttributeSource source, Method method) {
+        IllegalStateException exception = new IllegalStateException();
+        long start = System.nanoTime();
+        int rollbacks = 0;
+        for (int i = 0; i < CALLS; i++) {
+            TransactionAttribute attribute = source.getTransactionAttribute(method, BenchmarkService.class);
+            if (attribute.rollbackOn(exception)) {
+                rollbacks++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        log.info("[{}] {}ns/call (rollbacks={})", name, (double) elapsed / CALLS, rollbacks);
+    }
+
+    private void startupMillis(boolean enabled) {
+        long start = System.nanoTime();
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(SpringtransactionApplication.class)
+                .properties("tx.attribute-index.enabled=" + enabled, "spring.main.banner-mode=off", "logging.level.root=WARN")
+                .run();
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        SpringApplication.exit(context);
+        log.info("[startup index={}] {}ms", enabled, elapsed);
+    }
+
+    static class BenchmarkService {
+        @Transactional(rollbackFor = Exception.class, noRollbackFor = {IllegalArgumentException.class, UnsupportedOperationException.class})
+        public void order() {
+        }
+    }
+}
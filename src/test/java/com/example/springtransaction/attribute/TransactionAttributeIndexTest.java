@@ -0,0 +1,95 @@
+package com.example.springtransaction.attribute;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttributeSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 트랜잭션 속성 인덱스를 사용해도 메서드 > 클래스 우선순위와 롤백 규칙은 그대로이다.
+ */
+@Slf4j
+@SpringBootTest(properties = "tx.attribute-index.enabled=true")
+class TransactionAttributeIndexTest {
+
+    @Autowired
+    TransactionAttributeSource transactionAttributeSource;
+    @Autowired
+    IndexedService indexedService;
+
+    @Test
+    void indexBuiltWhileProxying() {
+        // 프록시를 만들 때 포인트컷이 조회한 속성이 이미 인덱스에 있다.
+        assertThat(transactionAttributeSource).isInstanceOf(IndexedTransactionAttributeSource.class);
+        assertThat(((IndexedTransactionAttributeSource) transactionAttributeSource).size()).isPositive();
+    }
+
+    @Test
+    void methodOverClass() throws NoSuchMethodException {
+        // when
+        Method write = IndexedService.class.getMethod("write");
+        Method read = IndexedService.class.getMethod("read");
+        TransactionAttribute writeAttribute = transactionAttributeSource.getTransactionAttribute(write, IndexedService.class);
+        TransactionAttribute readAttribute = transactionAttributeSource.getTransactionAttribute(read, IndexedService.class);
+
+        // then
+        assertThat(writeAttribute.isReadOnly()).isFalse();
+        assertThat(readAttribute.isReadOnly()).isTrue();
+        // 같은 조합은 같은 속성 객체를 돌려준다.
+        assertThat(transactionAttributeSource.getTransactionAttribute(write, IndexedService.class)).isSameAs(writeAttribute);
+
+        assertThat(indexedService.write()).isFalse();
+        assertThat(indexedService.read()).isTrue();
+    }
+
+    @Test
+    void rollbackRules() throws NoSuchMethodException {
+        // given
+        Method method = IndexedService.class.getMethod("rollbackForIo");
+        TransactionAttribute attribute = transactionAttributeSource.getTransactionAttribute(method, IndexedService.class);
+
+        // then : 예외 클래스별 결과를 기억해도 규칙은 같다.
+        for (int i = 0; i < 2; i++) {
+            assertThat(attribute.rollbackOn(new IOException())).isTrue();
+            assertThat(attribute.rollbackOn(new Exception())).isFalse();
+            assertThat(attribute.rollbackOn(new IllegalStateException())).isTrue();
+            assertThat(attribute.rollbackOn(new IllegalArgumentException())).isFalse();
+        }
+    }
+
+    @TestConfiguration
+    static class IndexConfig {
+        @Bean
+        IndexedService indexedService() {
+            return new IndexedService();
+        }
+    }
+
+    @Transactional(readOnly = true)
+    static class IndexedService {
+
+        @Transactional(readOnly = false)
+        public boolean write() {
+            return TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        }
+
+        public boolean read() {
+            return TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        }
+
+        @Transactional(rollbackFor = IOException.class, noRollbackFor = IllegalArgumentException.class)
+        public void rollbackForIo() {
+        }
+    }
+}
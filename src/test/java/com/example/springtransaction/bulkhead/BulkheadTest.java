@@ -0,0 +1,84 @@
+package com.example.springtransaction.bulkhead;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 동시 실행 수 제한
+ * 제한을 넘으면 트랜잭션이 시작되기 전에 바로 거절된다.
+ */
+@Slf4j
+@SpringBootTest(properties = {
+        "bulkhead.test.max-concurrent=1",
+        "bulkhead.test.queue-timeout-millis=0"
+})
+class BulkheadTest {
+
+    @Autowired
+    BulkheadService bulkheadService;
+
+    @Test
+    void rejectBeforeTransaction() throws Exception {
+        // given : 하나의 호출이 자리를 차지하고 있다.
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> holder = executor.submit(() -> bulkheadService.write(entered, release));
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // when, then : 같은 이름의 호출은 트랜잭션 없이 거절된다.
+        assertThatThrownBy(() -> bulkheadService.write(new CountDownLatch(1), new CountDownLatch(0)))
+                .isInstanceOf(BulkheadRejectedException.class);
+        assertThatThrownBy(() -> bulkheadService.read())
+                .isInstanceOf(BulkheadRejectedException.class);
+
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+    }
+
+    @TestConfiguration
+    static class BulkheadTestConfig {
+        @Bean
+        BulkheadService bulkheadService() {
+            return new BulkheadService();
+        }
+    }
+
+    @Slf4j
+    static class BulkheadService {
+
+        @Bulkhead("test")
+        @Transactional
+        public void write(CountDownLatch entered, CountDownLatch release) {
+            log.info("call write");
+            entered.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Bulkhead("test")
+        @Transactional(readOnly = true)
+        public boolean read() {
+            log.info("call read");
+            return TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        }
+    }
+}
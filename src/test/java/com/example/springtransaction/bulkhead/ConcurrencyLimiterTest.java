@@ -0,0 +1,48 @@
+package com.example.springtransaction.bulkhead;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ConcurrencyLimiterTest {
+
+    @Test
+    void fixedLimit() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("fixed", 2, 0, false, 0, 1, 2);
+
+        long first = limiter.acquire();
+        limiter.acquire();
+        assertThatThrownBy(limiter::acquire).isInstanceOf(BulkheadRejectedException.class);
+        assertThat(limiter.getRejectedCount()).isEqualTo(1);
+
+        limiter.release(first);
+        limiter.acquire();
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+    }
+
+    @Test
+    void adaptiveDecreaseOnSlowCall() throws InterruptedException {
+        // 목표 지연 0ms -> 모든 호출이 느린 호출
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("slow", 10, 0, true, 0, 5, 20);
+
+        for (int i = 0; i < 20; i++) {
+            long start = limiter.acquire();
+            Thread.sleep(1);
+            limiter.release(start);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(5);
+    }
+
+    @Test
+    void adaptiveIncreaseOnFastCall() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("fast", 10, 0, true, 10_000, 1, 20);
+
+        // limit 만큼 호출이 끝나면 +1
+        for (int i = 0; i < 11; i++) {
+            limiter.release(limiter.acquire());
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(11);
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.springtransaction.monitor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 트랜잭션 timeout 을 JDBC Statement 까지 전파
+ */
+@Slf4j
+@SpringBootTest(properties = "tx.monitor.enabled=true")
+class TransactionTimeoutTest {
+
+    @Autowired
+    PlatformTransactionManager txManager;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    DataSource dataSource;
+    @Autowired
+    TransactionTimeoutMetrics timeoutMetrics;
+
+    @Test
+    void cancelSlowQuery() {
+        // given
+        TransactionTemplate txTemplate = new TransactionTemplate(txManager);
+        txTemplate.setName("cancelSlowQuery");
+        txTemplate.setTimeout(1);
+
+        // when, then : 남은 시간이 Statement.setQueryTimeout 으로 설정되어 쿼리가 취소된다.
+        long start = System.currentTimeMillis();
+        assertThatThrownBy(() -> txTemplate.executeWithoutResult(status ->
+                jdbcTemplate.queryForObject("select sum(x) from system_range(1, 100000000000)", Long.class)))
+                .isInstanceOf(DataAccessException.class);
+        assertThat(System.currentTimeMillis() - start).isLessThan(5000);
+        assertThat(timeoutMetrics.count("cancelSlowQuery")).isEqualTo(1);
+    }
+
+    /**
+     * JdbcTemplate 를 거치지 않은 Statement 에도 남은 시간이 설정된다. (Hibernate, 직접 사용하는 JDBC)
+     */
+    @Test
+    void queryTimeoutOnRawStatement() {
+        // given
+        TransactionTemplate txTemplate = new TransactionTemplate(txManager);
+        txTemplate.setTimeout(5);
+
+        // when, then
+        txTemplate.executeWithoutResult(status -> {
+            Connection con = DataSourceUtils.getConnection(dataSource);
+            try (Statement statement = con.createStatement()) {
+                assertThat(statement.getQueryTimeout()).isZero();
+                statement.execute("select 1");
+                assertThat(statement.getQueryTimeout()).isBetween(1, 5);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                DataSourceUtils.releaseConnection(con, dataSource);
+            }
+        });
+    }
+
+    /**
+     * 외부 트랜잭션의 남은 시간이 거의 없을 때 시작한 REQUIRES_NEW 는 자신의 timeout(10초)이 아니라 남은 시간에 취소된다.
+     */
+    @Test
+    void requiresNewInheritsRemainingBudget() {
+        // given
+        TransactionTemplate outer = new TransactionTemplate(txManager);
+        outer.setTimeout(2);
+        TransactionTemplate inner = new TransactionTemplate(txManager);
+        inner.setName("inheritedBudget");
+        inner.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        inner.setTimeout(10);
+        long[] innerElapsed = new long[1];
+
+        // when : 외부 트랜잭션 시작 1.5초 뒤에 내부 트랜잭션에서 느린 쿼리를 실행한다.
+        assertThatThrownBy(() -> outer.executeWithoutResult(outerStatus -> {
+            sleep(1500);
+            long start = System.currentTimeMillis();
+            try {
+                inner.executeWithoutResult(innerStatus ->
+                        jdbcTemplate.queryForObject("select sum(x) from system_range(1, 100000000000)", Long.class));
+            } finally {
+                innerElapsed[0] = System.currentTimeMillis() - start;
+            }
+        })).isInstanceOf(DataAccessException.class);
+
+        // then : 남은 시간(올림 1초) 안에 취소되고, 내부 트랜잭션 이름으로 기록된다.
+        assertThat(innerElapsed[0]).isLessThan(3000);
+        assertThat(timeoutMetrics.count("inheritedBudget")).isEqualTo(1);
+        assertThat(TransactionDeadlines.current()).isEqualTo(TransactionDeadlines.NO_DEADLINE);
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.springtransaction.monitor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 오래 열려있는 트랜잭션 감시
+ * threshold 를 넘으면 스레드 스택과 트랜잭션 속성을 기록하고, abort-after 를 넘으면 실행중인 쿼리를 취소한다.
+ */
+@Slf4j
+@SpringBootTest(properties = {
+        "tx.monitor.enabled=true",
+        "tx.watchdog.threshold-millis=100",
+        "tx.watchdog.abort-after-millis=500",
+        "tx.watchdog.sample-interval-millis=50"
+})
+class TransactionWatchdogTest {
+
+    @Autowired
+    TransactionWatchdog watchdog;
+    @Autowired
+    OpenTransactionRegistry registry;
+    @Autowired
+    PlatformTransactionManager txManager;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void reportLongRunningTransaction() {
+        // given
+        TransactionTemplate txTemplate = new TransactionTemplate(txManager);
+        txTemplate.setName("reportLongRunningTransaction");
+
+        // when : 물리 트랜잭션이 threshold 보다 오래 열려있다.
+        txTemplate.executeWithoutResult(status -> {
+            assertThat(registry.size()).isEqualTo(1);
+            sleep(300);
+        });
+
+        // then : 트랜잭션 속성과 스레드 스택이 기록되고, 트랜잭션이 끝나면 목록에서 제거된다.
+        assertThat(watchdog.getReports())
+                .anySatisfy(report -> {
+                    assertThat(report.getTransaction()).contains("name=reportLongRunningTransaction");
+                    assertThat(report.getStack()).contains("TransactionWatchdogTest");
+                });
+        assertThat(registry.size()).isZero();
+    }
+
+    @Test
+    void abortByStatementCancel() {
+        // given
+        TransactionTemplate txTemplate = new TransactionTemplate(txManager);
+
+        // when, then : abort-after 를 넘은 쿼리는 취소되고 트랜잭션은 롤백된다.
+        assertThatThrownBy(() -> txTemplate.executeWithoutResult(status ->
+                jdbcTemplate.queryForObject("select sum(x) from system_range(1, 100000000000)", Long.class)))
+                .isInstanceOf(DataAccessException.class);
+        assertThat(registry.size()).isZero();
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.springtransaction.order;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.*;
+
+@Slf4j
+@SpringBootTest(properties = {
+        "order.archive.chunk-size=2",
+        "order.archive.min-chunk-size=1",
+        "order.archive.pause-ratio=0"
+})
+class OrderArchiverTest {
+
+    @Autowired
+    OrderArchiver orderArchiver;
+    @Autowired
+    OrderRepository orderRepository;
+    @Autowired
+    OrderArchiveRepository orderArchiveRepository;
+    @Autowired
+    OrderLookup orderLookup;
+    @Autowired
+    OrderStatusCounters orderStatusCounters;
+
+    @Test
+    void archiveSettledOrders() {
+        // given : 오래된 완료 주문 5건, 오래된 대기 주문 1건, 최근 완료 주문 1건
+        LocalDateTime old = LocalDateTime.now().minusDays(100);
+        Long[] settled = new Long[5];
+        for (int i = 0; i < settled.length; i++) {
+            settled[i] = save("완료", old).getId();
+        }
+        Long pending = save("대기", old).getId();
+        Long recent = save("완료", LocalDateTime.now()).getId();
+        orderStatusCounters.reconcile();
+        long settledCount = orderStatusCounters.count("완료");
+
+        // when : chunk 2건씩 여러 범위 트랜잭션으로 옮긴다.
+        long moved = orderArchiver.archive(LocalDateTime.now().minusDays(30));
+
+        // then
+        assertThat(moved).isGreaterThanOrEqualTo(5);
+        for (Long id : settled) {
+            assertThat(orderRepository.findById(id)).isEmpty();
+            assertThat(orderArchiveRepository.findById(id)).isPresent();
+            // 보관된 주문도 구분 없이 조회된다.
+            assertThat(orderLookup.findById(id)).get().extracting(Order::getPayStatus).isEqualTo("완료");
+        }
+        assertThat(orderRepository.findById(pending)).isPresent();
+        assertThat(orderRepository.findById(recent)).isPresent();
+        assertThat(orderLookup.findById(recent)).isPresent();
+        assertThat(orderStatusCounters.count("완료")).isEqualTo(settledCount - moved);
+    }
+
+    @Test
+    void restartIsIdempotent() {
+        // given
+        Long id = save("완료", LocalDateTime.now().minusDays(100)).getId();
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(30);
+        orderArchiver.archive(cutoff);
+
+        // when : 다시 실행하면 남아있는 대상이 없으므로 아무것도 옮기지 않는다.
+        long moved = orderArchiver.archive(cutoff);
+
+        // then
+        assertThat(moved).isZero();
+        assertThat(orderArchiveRepository.findById(id)).isPresent();
+    }
+
+    private Order save(String payStatus, LocalDateTime orderedAt) {
+        Order order = new Order();
+        order.setUsername("정상");
+        order.setPayStatus(payStatus);
+        order.setOrderedAt(orderedAt);
+        return orderRepository.save(order);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.springtransaction.order;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * 예외 기반 주문(order)과 결과 값 기반 주문(orderWithResult) 비교
+ * ./gradlew benchmark 로 실행한다.
+ * 트랜잭션 로그가 결과를 왜곡하지 않도록 로그 레벨을 낮춰서 실행한다.
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "logging.level.root=WARN",
+        "logging.level.org.springframework.transaction.interceptor=WARN",
+        "logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.com.example.springtransaction.order.OrderBenchmarkTest=INFO"
+})
+class OrderBenchmarkTest {
+
+    private static final int WARMUP = 2_000;
+    private static final int ITERATIONS = 10_000;
+
+    @Autowired
+    OrderService orderService;
+
+    @Test
+    void exceptionVsResult() {
+        for (String username : new String[]{"잔고부족", "정상"}) {
+            run("order " + username, WARMUP, () -> orderWithException(username));
+            run("orderWithResult " + username, WARMUP, () -> orderService.orderWithResult(newOrder(username)));
+
+            long exception = run("order " + username, ITERATIONS, () -> orderWithException(username));
+            long result = run("orderWithResult " + username, ITERATIONS, () -> orderService.orderWithResult(newOrder(username)));
+            log.info("[{}] order={}ns/op, orderWithResult={}ns/op", username, exception / ITERATIONS, result / ITERATIONS);
+        }
+    }
+
+    private void orderWithException(String username) {
+        try {
+            orderService.order(newOrder(username));
+        } catch (NotEnoughMoneyException e) {
+            // 잔고 부족은 커밋된다.
+        }
+    }
+
+    private long run(String name, int iterations, Runnable call) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            call.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        log.debug("{} {}회 {}ms", name, iterations, elapsed / 1_000_000);
+        return elapsed;
+    }
+
+    private Order newOrder(String username) {
+        Order order = new Order();
+        order.setUsername(username);
+        return order;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.springtransaction.order;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 동기 주문(OrderService.order)과 단계별 주문(OrderPipeline) 처리량 비교
+ * 같은 수의 호출 스레드로 정상 주문을 넣는다.
+ * ./gradlew benchmark 로 실행한다.
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "order.pipeline.enabled=true",
+        "bulkhead.order.queue-timeout-millis=600000",
+        "logging.level.root=WARN",
+        "logging.level.org.springframework.transaction.interceptor=WARN",
+        "logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.com.example.springtransaction.order.OrderPipelineBenchmarkTest=INFO"
+})
+class OrderPipelineBenchmarkTest {
+
+    private static final int ORDERS = 20_000;
+    private static final int CONCURRENCY = 16;
+
+    @Autowired
+    OrderService orderService;
+    @Autowired
+    OrderPipeline orderPipeline;
+
+    @Test
+    void synchronousVsPipeline() throws Exception {
+        Call synchronous = order -> {
+            orderService.order(order);
+            return null;
+        };
+        Call pipeline = order -> orderPipeline.submit(order).get();
+
+        run(synchronous, ORDERS / 10);
+        run(pipeline, ORDERS / 10);
+
+        long synchronousMillis = run(synchronous, ORDERS);
+        long pipelineMillis = run(pipeline, ORDERS);
+        log.info("[동기] {}건 {}ms, {} orders/s", ORDERS, synchronousMillis, ORDERS * 1000L / Math.max(1, synchronousMillis));
+        log.info("[pipeline] {}건 {}ms, {} orders/s", ORDERS, pipelineMillis, ORDERS * 1000L / Math.max(1, pipelineMillis));
+    }
+
+    private long run(Call call, int orders) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY);
+        long start = System.nanoTime();
+        Future<?>[] results = new Future<?>[orders];
+        for (int i = 0; i < orders; i++) {
+            Order order = new Order();
+            order.setUsername("정상");
+            results[i] = executor.submit(() -> call.order(order));
+        }
+        for (Future<?> result : results) {
+            result.get(5, TimeUnit.MINUTES);
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        executor.shutdown();
+        return elapsed;
+    }
+
+    private interface Call {
+        Object order(Order order) throws Exception;
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.springtransaction.order;
+
+import com.example.springtransaction.outbox.Outbox;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 단계별 주문 처리도 OrderService.order 와 같은 커밋, 롤백 결과를 가져야 한다.
+ */
+@SpringBootTest(properties = "order.pipeline.enabled=true")
+class OrderPipelineTest {
+
+    @Autowired
+    OrderPipeline orderPipeline;
+    @Autowired
+    OrderRepository orderRepository;
+    @Autowired
+    OrderStatusCounters orderStatusCounters;
+    @Autowired
+    Outbox outbox;
+    @Autowired
+    PlatformTransactionManager txManager;
+
+    @Test
+    void complete() throws Exception {
+        Order order = orderPipeline.submit(newOrder("정상")).get(5, TimeUnit.SECONDS);
+
+        assertThat(orderRepository.findById(order.getId()).get().getPayStatus()).isEqualTo("완료");
+    }
+
+    @Test
+    void runtimeException() {
+        Order order = newOrder("예외");
+
+        // 롤백과 같이 주문 데이터가 남지 않는다.
+        assertThatThrownBy(() -> orderPipeline.submit(order).get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(RuntimeException.class)
+                .hasRootCauseMessage("시스템 예외");
+        assertThat(order.getId()).isNull();
+    }
+
+    @Test
+    void bizException() {
+        Order order = newOrder("잔고부족");
+
+        // 체크 예외로 알리지만 주문은 대기 상태로 커밋된다.
+        assertThatThrownBy(() -> orderPipeline.submit(order).get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(NotEnoughMoneyException.class);
+        assertThat(orderRepository.findById(order.getId()).get().getPayStatus()).isEqualTo("대기");
+    }
+
+    @Test
+    void batchMixedOrders() {
+        // given
+        long completedBefore = orderStatusCounters.count("완료");
+        List<CompletableFuture<Order>> results = new ArrayList<>();
+
+        // when : 여러 묶음에 걸쳐 섞어서 넣는다.
+        for (int i = 0; i < 1_000; i++) {
+            results.add(orderPipeline.submit(newOrder(i % 10 == 0 ? "예외" : "정상")));
+        }
+        CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).exceptionally(e -> null).join();
+
+        // then : 예외 주문만 실패하고, 커밋된 주문만 카운터에 반영된다.
+        long failed = results.stream().filter(CompletableFuture::isCompletedExceptionally).count();
+        assertThat(failed).isEqualTo(100);
+        assertThat(orderStatusCounters.count("완료") - completedBefore).isEqualTo(900);
+    }
+
+    @Test
+    void batchFailureSplits() {
+        // given
+        long splitsBefore = orderPipeline.getSplitCount();
+        List<Order> orders = new ArrayList<>();
+        List<CompletableFuture<Order>> results = new ArrayList<>();
+
+        // when : username 이 컬럼 길이(255)를 넘는 주문은 insert 에서 실패해서 같은 묶음 전체가 롤백된다.
+        for (int i = 0; i < 1_000; i++) {
+            Order order = newOrder(i % 100 == 0 ? "저장실패".repeat(100) : "정상");
+            orders.add(order);
+            results.add(orderPipeline.submit(order));
+        }
+        CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).exceptionally(e -> null).join();
+
+        // then : 나누어 다시 시도해서 실패한 주문만 남기고 나머지는 저장된다.
+        assertThat(orderPipeline.getSplitCount()).isGreaterThan(splitsBefore);
+        for (int i = 0; i < orders.size(); i++) {
+            if (i % 100 == 0) {
+                assertThat(results.get(i)).isCompletedExceptionally();
+                assertThat(orders.get(i).getId()).isNull();
+            } else {
+                assertThat(orderRepository.findById(results.get(i).join().getId())).isPresent();
+            }
+        }
+    }
+
+    @Test
+    void rejectedAfterStop() throws InterruptedException {
+        // 같은 컨텍스트를 쓰는 다른 테스트에 영향을 주지 않도록 따로 만든다.
+        OrderPipeline pipeline = new OrderPipeline(orderRepository, orderStatusCounters, outbox, txManager, 16, 10, 100);
+        pipeline.start();
+        Order order = pipeline.submit(newOrder("정상")).join();
+        pipeline.stop();
+
+        assertThat(orderRepository.findById(order.getId())).isPresent();
+        assertThatThrownBy(() -> pipeline.submit(newOrder("정상")).join())
+                .hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void nullUsername() {
+        assertThatThrownBy(() -> orderPipeline.submit(newOrder(null)).get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IllegalArgumentException.class)
+                .hasRootCauseMessage("username 이 없습니다.");
+    }
+
+    @Test
+    void stageSurvivesUnexpectedException() throws Exception {
+        // given : validation 단계에서 예상하지 못한 예외가 나는 주문
+        Order broken = new Order() {
+            @Override
+            public Long getId() {
+                throw new IllegalStateException("id 조회 실패");
+            }
+        };
+        broken.setUsername("정상");
+
+        // when, then : 그 주문만 실패한다.
+        assertThatThrownBy(() -> orderPipeline.submit(broken).get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IllegalStateException.class)
+                .hasRootCauseMessage("id 조회 실패");
+
+        // 단계 스레드는 계속 동작한다.
+        Order order = orderPipeline.submit(newOrder("정상")).get(5, TimeUnit.SECONDS);
+        assertThat(orderRepository.findById(order.getId())).isPresent();
+    }
+
+    private Order newOrder(String username) {
+        Order order = new Order();
+        order.setUsername(username);
+        return order;
+    }
+}
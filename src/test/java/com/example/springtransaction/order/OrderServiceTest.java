@@ -1,5 +1,7 @@
 package com.example.springtransaction.order;
 
+import com.example.springtransaction.sql.CountSql;
+import com.example.springtransaction.sql.SqlBudget;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.weaver.ast.Or;
 import org.assertj.core.api.Assertions;
@@ -15,9 +17,13 @@ import static org.junit.jupiter.api.Assertions.*;
 /**
  * 체크 예외 : 비지니스 의미가 있을 때 사용 -> 커밋
  * 언체크 예외 : 복구 불가능한 예외 -> 롤백
+ *
+ * SQL budget : 시퀀스 1, 커밋되면 insert 1 + update 1 (저장 후 payStatus 변경), then 의 findById 는 커넥션 1, select 1, 커밋 1
+ * 완료된 주문은 outbox 이벤트 시퀀스 1, insert 1 이 더해진다.
  */
 @Slf4j
 @SpringBootTest
+@CountSql
 class OrderServiceTest {
 
     @Autowired
@@ -31,6 +37,7 @@ class OrderServiceTest {
      * @throws NotEnoughMoneyException
      */
     @Test
+    @SqlBudget(selects = 1, inserts = 2, updates = 1, sequences = 2, commits = 2, rollbacks = 0, connections = 2)
     void complete() throws NotEnoughMoneyException {
         // given
         Order order = new Order();
@@ -50,6 +57,7 @@ class OrderServiceTest {
      * 롤백 수행되기 때문에 Order에는 데이터가 비어있다.
      */
     @Test
+    @SqlBudget(selects = 1, inserts = 0, updates = 0, sequences = 1, commits = 1, rollbacks = 1, connections = 2)
     void runtimeException() {
         // given
         Order order = new Order();
@@ -69,6 +77,7 @@ class OrderServiceTest {
      * 체크 예외로 커밋이 수행되어 Order 데이터 저장된다.
      */
     @Test
+    @SqlBudget(selects = 1, inserts = 1, updates = 1, sequences = 1, commits = 2, rollbacks = 0, connections = 2)
     void bizException() {
         // given
         Order order = new Order();
@@ -86,4 +95,62 @@ class OrderServiceTest {
         assertThat(findOrder.getPayStatus()).isEqualTo("대기");
 
     }
-}
\ No newline at end of file
+
+    /**
+     * 결과 값 API : 정상
+     */
+    @Test
+    @SqlBudget(selects = 1, inserts = 2, updates = 1, sequences = 2, commits = 2, rollbacks = 0, connections = 2)
+    void completeWithResult() {
+        // given
+        Order order = new Order();
+        order.setUsername("정상");
+
+        // when
+        PayResult result = orderService.orderWithResult(order);
+
+        // then
+        assertThat(result).isEqualTo(PayResult.COMPLETED);
+        Order findOrder = orderRepository.findById(order.getId()).get();
+        assertThat(findOrder.getPayStatus()).isEqualTo("완료");
+    }
+
+    /**
+     * 결과 값 API : 예외
+     * 예외를 던지지 않고 FAILED 를 반환하지만 트랜잭션은 롤백된다.
+     */
+    @Test
+    @SqlBudget(selects = 1, inserts = 0, updates = 0, sequences = 1, commits = 1, rollbacks = 1, connections = 2)
+    void failedWithResult() {
+        // given
+        Order order = new Order();
+        order.setUsername("예외");
+
+        // when
+        PayResult result = orderService.orderWithResult(order);
+
+        // then : 롤백 됐기 때문에 데이터가 없어야 한다.
+        assertThat(result).isEqualTo(PayResult.FAILED);
+        assertThat(orderRepository.findById(order.getId())).isEmpty();
+    }
+
+    /**
+     * 결과 값 API : 잔고부족
+     * PENDING 을 반환하고 Order 데이터는 대기 상태로 커밋된다.
+     */
+    @Test
+    @SqlBudget(selects = 1, inserts = 1, updates = 1, sequences = 1, commits = 2, rollbacks = 0, connections = 2)
+    void pendingWithResult() {
+        // given
+        Order order = new Order();
+        order.setUsername("잔고부족");
+
+        // when
+        PayResult result = orderService.orderWithResult(order);
+
+        // then
+        assertThat(result).isEqualTo(PayResult.PENDING);
+        Order findOrder = orderRepository.findById(order.getId()).get();
+        assertThat(findOrder.getPayStatus()).isEqualTo("대기");
+    }
+}
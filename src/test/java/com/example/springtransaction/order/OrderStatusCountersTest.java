@@ -0,0 +1,90 @@
+package com.example.springtransaction.order;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 주문 상태 카운터는 커밋된 주문만 센다.
+ */
+@Slf4j
+@SpringBootTest
+class OrderStatusCountersTest {
+
+    @Autowired
+    OrderService orderService;
+    @Autowired
+    OrderStatusCounters orderStatusCounters;
+    @Autowired
+    OrderRepository orderRepository;
+    @Autowired
+    PlatformTransactionManager txManager;
+
+    @Test
+    void countOnlyCommittedOrders() {
+        // given
+        long completed = orderStatusCounters.count("완료");
+        long pending = orderStatusCounters.count("대기");
+
+        // when
+        orderService.orderWithResult(newOrder("정상"));
+        orderService.orderWithResult(newOrder("예외"));  // 롤백
+        assertThatThrownBy(() -> orderService.order(newOrder("잔고부족"))).isInstanceOf(NotEnoughMoneyException.class);
+        assertThatThrownBy(() -> orderService.order(newOrder("예외"))).isInstanceOf(RuntimeException.class);
+
+        // then
+        assertThat(orderStatusCounters.count("완료")).isEqualTo(completed + 1);
+        assertThat(orderStatusCounters.count("대기")).isEqualTo(pending + 1);
+    }
+
+    @Test
+    void reconcileKeepsCountersInSync() {
+        // given
+        orderService.orderWithResult(newOrder("정상"));
+        Map<String, Long> before = orderStatusCounters.counts();
+
+        // when
+        orderStatusCounters.reconcile();
+
+        // then : 커밋 후 반영된 카운터는 DB와 같으므로 보정되지 않는다.
+        assertThat(orderStatusCounters.counts()).isEqualTo(before);
+    }
+
+    @Test
+    void reconcileSkipsCommittingOrders() {
+        // given
+        long completed = orderStatusCounters.count("완료");
+
+        // when : DB 에는 커밋됐지만 카운터 증가(afterCommit)는 아직 실행되지 않은 시점에 보정한다.
+        new TransactionTemplate(txManager).executeWithoutResult(status -> {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    orderStatusCounters.reconcile();
+                }
+            });
+            Order order = newOrder("정상");
+            order.setPayStatus("완료");
+            orderRepository.save(order);
+            orderStatusCounters.incrementAfterCommit(order);
+        });
+
+        // then : 보정과 커밋 후 증가가 겹쳐서 두 번 세지 않는다.
+        assertThat(orderStatusCounters.count("완료")).isEqualTo(completed + 1);
+    }
+
+    private Order newOrder(String username) {
+        Order order = new Order();
+        order.setUsername(username);
+        return order;
+    }
+}
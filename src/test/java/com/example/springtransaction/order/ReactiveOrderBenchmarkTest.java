@@ -0,0 +1,109 @@
+package com.example.springtransaction.order;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 블로킹(OrderService, JPA)과 논블로킹(ReactiveOrderService, R2DBC) 주문 처리 비교
+ * 동시 요청 수를 같게 두고 처리량과 지연 시간(p50, p99)을 비교한다.
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "order.reactive.enabled=true",
+        "bulkhead.order.max-concurrent=10",
+        "bulkhead.order.queue-timeout-millis=60000",
+        "logging.level.root=WARN",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.springframework.transaction.interceptor=WARN",
+        "logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN",
+        "logging.level.com.example.springtransaction.order.ReactiveOrderBenchmarkTest=INFO"
+})
+class ReactiveOrderBenchmarkTest {
+
+    private static final int ORDERS = 20_000;
+    private static final int CONCURRENCY = 200;
+
+    @Autowired
+    OrderService orderService;
+    @Autowired
+    ReactiveOrderService reactiveOrderService;
+
+    @Test
+    void blockingVsReactive() throws Exception {
+        blocking(ORDERS / 10);
+        reactive(ORDERS / 10);
+
+        long start = System.nanoTime();
+        long[] blockingLatencies = blocking(ORDERS);
+        report("blocking", start, blockingLatencies);
+
+        start = System.nanoTime();
+        long[] reactiveLatencies = reactive(ORDERS);
+        report("reactive", start, reactiveLatencies);
+    }
+
+    // 플랫폼 스레드 CONCURRENCY 개가 블로킹 호출
+    private long[] blocking(int orders) throws Exception {
+        long[] latencies = new long[orders];
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY);
+        Future<?>[] results = new Future<?>[orders];
+        for (int i = 0; i < orders; i++) {
+            int index = i;
+            results[i] = executor.submit(() -> {
+                long start = System.nanoTime();
+                try {
+                    orderService.order(newOrder());
+                } catch (NotEnoughMoneyException e) {
+                    throw new IllegalStateException(e);
+                }
+                latencies[index] = System.nanoTime() - start;
+            });
+        }
+        for (Future<?> result : results) {
+            result.get(5, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+        return latencies;
+    }
+
+    // 동시에 CONCURRENCY 개까지 구독
+    private long[] reactive(int orders) {
+        long[] latencies = new long[orders];
+        Flux.range(0, orders)
+                .flatMap(index -> Mono.defer(() -> {
+                    long start = System.nanoTime();
+                    return reactiveOrderService.order(newOrder())
+                            .doOnSuccess(order -> latencies[index] = System.nanoTime() - start);
+                }), CONCURRENCY)
+                .blockLast(Duration.ofMinutes(5));
+        return latencies;
+    }
+
+    private void report(String name, long start, long[] latencies) {
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        Arrays.sort(latencies);
+        log.info("[{}] {}건 {}ms, {} orders/s, p50={}us, p99={}us", name, latencies.length, elapsedMillis,
+                latencies.length * 1000L / Math.max(1, elapsedMillis),
+                latencies[latencies.length / 2] / 1_000,
+                latencies[latencies.length * 99 / 100] / 1_000);
+    }
+
+    private Order newOrder() {
+        Order order = new Order();
+        order.setUsername("정상");
+        return order;
+    }
+}
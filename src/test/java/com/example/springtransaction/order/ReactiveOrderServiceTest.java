@@ -0,0 +1,88 @@
+package com.example.springtransaction.order;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * OrderServiceTest 의 논블로킹 버전
+ * 체크 예외(잔고부족) : 커밋 후 에러 신호
+ * 언체크 예외(예외) : 롤백
+ */
+@Slf4j
+@SpringBootTest(properties = "order.reactive.enabled=true")
+class ReactiveOrderServiceTest {
+
+    @Autowired
+    ReactiveOrderService orderService;
+    @Autowired
+    ReactiveOrderRepository orderRepository;
+
+    /**
+     * 사용자 이름 : 정상
+     * 모든 프로세스 정상 수행
+     */
+    @Test
+    void complete() {
+        // given
+        Order order = new Order();
+        order.setUsername("정상");
+
+        // when
+        StepVerifier.create(orderService.order(order))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        // then
+        StepVerifier.create(orderRepository.findById(order.getId()))
+                .assertNext(findOrder -> assertThat(findOrder.getPayStatus()).isEqualTo("완료"))
+                .verifyComplete();
+    }
+
+    /**
+     * 사용자 이름 : 예외
+     * RuntimeException("시스템 예외") 에러 신호
+     * 롤백 수행되기 때문에 Order에는 데이터가 비어있다.
+     */
+    @Test
+    void runtimeException() {
+        // given
+        Order order = new Order();
+        order.setUsername("예외");
+
+        // when
+        StepVerifier.create(orderService.order(order))
+                .expectError(RuntimeException.class)
+                .verify();
+
+        // then : 롤백 됐기 때문에 데이터가 없어야 한다.
+        StepVerifier.create(orderRepository.findById(order.getId()))
+                .verifyComplete();
+    }
+
+    /**
+     * 사용자 이름 : 잔고부족
+     * NotEnoughMoneyException("잔고가 부족합니다.") 에러 신호
+     * 에러 신호 전에 커밋이 수행되어 Order 데이터 저장된다.
+     */
+    @Test
+    void bizException() {
+        // given
+        Order order = new Order();
+        order.setUsername("잔고부족");
+
+        // when
+        StepVerifier.create(orderService.order(order))
+                .expectError(NotEnoughMoneyException.class)
+                .verify();
+
+        // then
+        StepVerifier.create(orderRepository.findById(order.getId()))
+                .assertNext(findOrder -> assertThat(findOrder.getPayStatus()).isEqualTo("대기"))
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.springtransaction.outbox;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 테스트용 sink, 받은 이벤트를 메모리에 모은다.
+ * failNext 로 다음 전달을 실패시킬 수 있다.
+ */
+public class InMemoryOutboxSink implements OutboxSink {
+
+    private final List<OutboxMessage> messages = new ArrayList<>();
+    private final AtomicInteger failures = new AtomicInteger();
+
+    @Override
+    public synchronized void publish(List<OutboxMessage> batch) {
+        if (failures.getAndUpdate(count -> Math.max(0, count - 1)) > 0) {
+            throw new IllegalStateException("sink 전달 실패");
+        }
+        messages.addAll(batch);
+    }
+
+    public void failNext(int count) {
+        failures.set(count);
+    }
+
+    public synchronized List<OutboxMessage> getMessages() {
+        return new ArrayList<>(messages);
+    }
+
+    public synchronized void clear() {
+        messages.clear();
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.springtransaction.outbox;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * outbox relay 처리량 (H2)
+ * 이벤트를 미리 쌓아두고 relay 1개, 4개가 모두 전달하는 데 걸리는 시간을 잰다.
+ * relay 가 여러 개면 SKIP LOCKED 로 서로 다른 묶음을 가져간다.
+ * ./gradlew benchmark 로 실행한다.
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "logging.level.root=WARN",
+        "logging.level.org.springframework.transaction.interceptor=WARN",
+        "logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.com.example.springtransaction.outbox.OutboxRelayBenchmarkTest=INFO"
+})
+class OutboxRelayBenchmarkTest {
+
+    private static final int EVENTS = 50_000;
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    Outbox outbox;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    PlatformTransactionManager txManager;
+
+    @Test
+    void relayThroughput() {
+        for (int relays : new int[]{1, 4}) {
+            fill(EVENTS);
+            ExecutorService executor = Executors.newFixedThreadPool(relays);
+            long start = System.nanoTime();
+            List<CompletableFuture<Long>> results = new ArrayList<>();
+            for (int i = 0; i < relays; i++) {
+                OutboxRelay relay = new OutboxRelay(jdbcTemplate, txManager, new InMemoryOutboxSink(),
+                        "benchmark-" + relays + "-" + i, BATCH_SIZE);
+                relay.init();
+                results.add(CompletableFuture.supplyAsync(relay::relayUntilEmpty, executor));
+            }
+            long delivered = results.stream().mapToLong(CompletableFuture::join).sum();
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            executor.shutdown();
+            log.info("[relay {}] {}건 {}ms, {} events/s", relays, delivered, elapsedMillis,
+                    delivered * 1000L / Math.max(1, elapsedMillis));
+        }
+    }
+
+    private void fill(int events) {
+        TransactionTemplate txTemplate = new TransactionTemplate(txManager);
+        for (int i = 0; i < events; i += 1_000) {
+            int from = i;
+            txTemplate.executeWithoutResult(status -> {
+                for (int j = from; j < from + 1_000; j++) {
+                    outbox.append("Order", (long) j, "OrderCompleted", Outbox.json("username", "정상", "payStatus", "완료"));
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.springtransaction.outbox;
+
+import com.example.springtransaction.order.NotEnoughMoneyException;
+import com.example.springtransaction.order.Order;
+import com.example.springtransaction.order.OrderService;
+import com.example.springtransaction.propagation.Member;
+import com.example.springtransaction.propagation.MemberRepository;
+import com.example.springtransaction.propagation.MemberService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * transactional outbox
+ * 이벤트는 주문, 회원과 함께 커밋되거나 함께 롤백되고, relay 가 전달한 뒤에 삭제된다.
+ */
+@SpringBootTest
+class OutboxRelayTest {
+
+    @Autowired
+    OrderService orderService;
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    OutboxRelay outboxRelay;
+    @Autowired
+    InMemoryOutboxSink sink;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    PlatformTransactionManager txManager;
+
+    @TestConfiguration
+    static class SinkConfig {
+        @Bean
+        @Primary
+        InMemoryOutboxSink inMemoryOutboxSink() {
+            return new InMemoryOutboxSink();
+        }
+    }
+
+    @BeforeEach
+    void drain() {
+        outboxRelay.relayUntilEmpty();
+        sink.clear();
+    }
+
+    @Test
+    void orderCompleted() throws NotEnoughMoneyException {
+        // given
+        Order order = newOrder("정상");
+        orderService.order(order);
+
+        // when
+        long delivered = outboxRelay.relayUntilEmpty();
+
+        // then
+        assertThat(delivered).isEqualTo(1);
+        OutboxMessage message = sink.getMessages().get(0);
+        assertThat(message.getEventType()).isEqualTo("OrderCompleted");
+        assertThat(message.getAggregateId()).isEqualTo(order.getId());
+        assertThat(message.getPayload()).isEqualTo("{\"username\":\"정상\",\"payStatus\":\"완료\"}");
+
+        OutboxRelay.OutboxLag lag = outboxRelay.lag();
+        assertThat(lag.getPending()).isZero();
+        assertThat(lag.getLastEventId()).isEqualTo(message.getId());
+    }
+
+    @Test
+    void noEventWithoutCompletedOrder() {
+        // 예외 : 롤백되어 이벤트도 없다. 잔고부족 : 대기 상태로 커밋되지만 완료가 아니다.
+        assertThatThrownBy(() -> orderService.order(newOrder("예외"))).isInstanceOf(RuntimeException.class);
+        assertThatThrownBy(() -> orderService.order(newOrder("잔고부족"))).isInstanceOf(NotEnoughMoneyException.class);
+
+        assertThat(outboxRelay.relayUntilEmpty()).isZero();
+    }
+
+    @Test
+    void memberJoined() {
+        // when
+        memberService.joinV1("outboxMember");
+        assertThatThrownBy(() -> memberService.joinV1("로그예외_outbox")).isInstanceOf(RuntimeException.class);
+        outboxRelay.relayUntilEmpty();
+
+        // then : 롤백된 가입의 이벤트는 전달되지 않는다.
+        assertThat(sink.getMessages()).extracting(OutboxMessage::getPayload)
+                .containsExactly("{\"username\":\"outboxMember\"}");
+    }
+
+    @Test
+    void memberJoinedWithoutServiceTransaction() {
+        // when : 서비스 트랜잭션 없이 회원을 저장해도 (MemberService @Transactional Off)
+        memberRepository.save(new Member("outboxNoServiceTx"));
+        outboxRelay.relayUntilEmpty();
+
+        // then : MemberRepository 트랜잭션에서 이벤트가 함께 저장된다.
+        assertThat(sink.getMessages()).extracting(OutboxMessage::getPayload)
+                .containsExactly("{\"username\":\"outboxNoServiceTx\"}");
+    }
+
+    @Test
+    void redeliverAfterSinkFailure() throws NotEnoughMoneyException {
+        // given
+        orderService.order(newOrder("정상"));
+        sink.failNext(1);
+
+        // when : 실패하면 롤백되어 이벤트가 남는다.
+        assertThat(outboxRelay.relayUntilEmpty()).isZero();
+        assertThat(outboxRelay.lag().getPending()).isEqualTo(1);
+
+        // then : 다음 polling 에서 전달된다.
+        assertThat(outboxRelay.relayUntilEmpty()).isEqualTo(1);
+        assertThat(outboxRelay.lag().getPending()).isZero();
+        assertThat(outboxRelay.lag().getFailures()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    void skipLockedEvents() throws Exception {
+        // given
+        Order first = newOrder("정상");
+        orderService.order(first);
+        orderService.order(newOrder("정상"));
+        orderService.order(newOrder("정상"));
+
+        // 다른 relay 가 첫 이벤트를 잠그고 있다.
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> otherRelay = CompletableFuture.runAsync(() ->
+                new TransactionTemplate(txManager).executeWithoutResult(status -> {
+                    jdbcTemplate.queryForList("select id from outbox_event order by id limit 1 for update", Long.class);
+                    locked.countDown();
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }));
+        assertThat(locked.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // when : 기다리지 않고 잠기지 않은 이벤트만 전달한다.
+        int delivered = outboxRelay.relayOnce();
+        release.countDown();
+        otherRelay.get(10, TimeUnit.SECONDS);
+
+        // then
+        assertThat(delivered).isEqualTo(2);
+        List<OutboxMessage> messages = sink.getMessages();
+        assertThat(messages).extracting(OutboxMessage::getAggregateId).doesNotContain(first.getId());
+        assertThat(outboxRelay.relayUntilEmpty()).isEqualTo(1);
+    }
+
+    private Order newOrder(String username) {
+        Order order = new Order();
+        order.setUsername(username);
+        return order;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.springtransaction.persistence;
+
+import com.example.springtransaction.propagation.Member;
+import com.example.springtransaction.propagation.MemberRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 영속성 컨텍스트 크기 관리
+ * flush-threshold 에 도달하면 flush, clear 하기 때문에 영속성 컨텍스트 크기가 threshold 를 넘지 않는다.
+ */
+@Slf4j
+@SpringBootTest(properties = {
+        "jpa.governor.enabled=true",
+        "jpa.governor.flush-threshold=10",
+        "jpa.governor.read-only-warn-threshold=5"
+})
+class PersistenceContextGovernorTest {
+
+    @Autowired
+    PersistenceContextGovernor governor;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    PlatformTransactionManager txManager;
+
+    @Test
+    void flushAndClearPastThreshold() {
+        // given
+        TransactionTemplate txTemplate = new TransactionTemplate(txManager);
+
+        // when : 하나의 트랜잭션에서 회원 25명 저장
+        txTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < 25; i++) {
+                memberRepository.save(new Member("governor_" + i));
+            }
+            assertThat(governor.currentPeak()).isEqualTo(10);
+        });
+
+        // then : 10건마다 flush, clear 되고 모든 회원은 커밋된다.
+        PersistenceContextStats stats = governor.getLastStats();
+        log.info("stats={}", stats);
+        assertThat(stats.getPeak()).isEqualTo(10);
+        assertThat(stats.getClearCount()).isEqualTo(2);
+        assertThat(memberRepository.find("governor_0")).isPresent();
+        assertThat(memberRepository.find("governor_24")).isPresent();
+    }
+
+    @Test
+    void readOnlyTransactionIsNotCleared() {
+        // given : flush-threshold(10) 보다 많은 회원
+        TransactionTemplate txTemplate = new TransactionTemplate(txManager);
+        txTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < 15; i++) {
+                memberRepository.save(new Member("governor_readOnly"));
+            }
+        });
+        int warnCount = governor.getReadOnlyWarnCount();
+
+        // when : 읽기 전용 트랜잭션에서 조회한다. find 는 같은 이름의 회원을 모두 읽어서 하나를 고른다.
+        txTemplate.setReadOnly(true);
+        txTemplate.executeWithoutResult(status -> {
+            memberRepository.find("governor_readOnly");
+            assertThat(governor.currentPeak()).isEqualTo(15);
+        });
+
+        // then : threshold 를 넘어도 clear 하지 않고, read-only-warn-threshold(5) 를 넘었으므로 경고한다.
+        PersistenceContextStats stats = governor.getLastStats();
+        assertThat(stats.isReadOnly()).isTrue();
+        assertThat(stats.getPeak()).isEqualTo(15);
+        assertThat(stats.getClearCount()).isZero();
+        assertThat(governor.getReadOnlyWarnCount()).isEqualTo(warnCount + 1);
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.springtransaction.pool;
+
+import com.example.springtransaction.order.NotEnoughMoneyException;
+import com.example.springtransaction.order.Order;
+import com.example.springtransaction.order.OrderService;
+import com.example.springtransaction.propagation.MemberService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 커넥션 중첩 깊이 기록, 풀 크기 결정
+ */
+@SpringBootTest(properties = {"pool.controller.enabled=true", "pool.controller.interval-millis=600000"})
+class PoolSizeControllerTest {
+
+    @Autowired
+    PoolUsage poolUsage;
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    OrderService orderService;
+
+    @Test
+    void connectionDepth() throws NotEnoughMoneyException {
+        // when
+        memberService.joinV1("poolDepth");
+        Order order = new Order();
+        order.setUsername("정상");
+        orderService.order(order);
+
+        // then : joinV1 은 로그를 REQUIRES_NEW 로 저장하므로 커넥션을 2개 잡는다.
+        Map<String, PoolUsage.MethodUsage> methods = poolUsage.getMethods();
+        assertThat(methods.get("MemberService.joinV1").getMaxDepth()).isEqualTo(2);
+        assertThat(methods.get("OrderService.order").getMaxDepth()).isEqualTo(1);
+    }
+
+    @Test
+    void growOnWait() {
+        PoolSizeController controller = controller(new PoolSizeController.Settings().minSize(2).maxSize(12).step(4));
+
+        assertThat(controller.decide(10, TimeUnit.MILLISECONDS.toNanos(20), 0, 10)).isEqualTo(12);
+        assertThat(controller.decide(8, 0, 3, 8)).isEqualTo(12);
+    }
+
+    @Test
+    void shrinkAfterIdleWindows() {
+        PoolSizeController controller = controller(new PoolSizeController.Settings().minSize(2).shrinkAfter(3));
+
+        assertThat(controller.decide(10, 0, 0, 1)).isEqualTo(10);
+        assertThat(controller.decide(10, 0, 0, 1)).isEqualTo(10);
+        assertThat(controller.decide(10, 0, 0, 1)).isEqualTo(9);
+
+        // 바쁜 구간이 끼면 다시 센다.
+        assertThat(controller.decide(9, 0, 0, 8)).isEqualTo(9);
+        assertThat(controller.decide(9, 0, 0, 1)).isEqualTo(9);
+    }
+
+    @Test
+    void shrinkKeepsDeadlockFreeMinimum() {
+        // 동시 4 스레드, 깊이 2 -> 4 * (2 - 1) + 1 = 5 아래로 줄이지 않는다.
+        PoolUsage usage = new PoolUsage();
+        usage.recordMethod("MemberService.joinV1", TimeUnit.MILLISECONDS.toNanos(20), 2);
+        PoolSizeController controller = new PoolSizeController(null, usage, new PoolSizeRecommender(0.2),
+                new PoolSizeController.Settings().minSize(2).shrinkAfter(1).maxConcurrent(4));
+
+        assertThat(controller.decide(6, 0, 0, 1)).isEqualTo(5);
+        assertThat(controller.decide(5, 0, 0, 1)).isEqualTo(5);
+        // 이미 최소 크기보다 작으면 그대로 둔다. (줄이는 결정으로 늘리지 않는다)
+        assertThat(controller.decide(3, 0, 0, 1)).isEqualTo(3);
+    }
+
+    @Test
+    void recommend() {
+        // 초당 100번, 평균 20ms, 깊이 2 -> 평균 4개, 동시 4 스레드 -> 교착 방지 최소 4 * (2 - 1) + 1 = 5
+        PoolUsage usage = new PoolUsage();
+        for (int i = 0; i < 100; i++) {
+            usage.recordMethod("MemberService.joinV1", TimeUnit.MILLISECONDS.toNanos(20), 2);
+        }
+        PoolSizeRecommender.Recommendation recommendation = new PoolSizeRecommender(0.5)
+                .recommend(usage.getMethods(), TimeUnit.SECONDS.toNanos(1), 4);
+
+        assertThat(recommendation.getAverageDemand()).isCloseTo(4.0, within(0.01));
+        assertThat(recommendation.getDeadlockFreeMinimum()).isEqualTo(5);
+        assertThat(recommendation.getPoolSize()).isEqualTo(6);
+    }
+
+    private PoolSizeController controller(PoolSizeController.Settings settings) {
+        return new PoolSizeController(null, new PoolUsage(), new PoolSizeRecommender(0.2), settings);
+    }
+}
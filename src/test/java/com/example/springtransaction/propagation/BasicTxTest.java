@@ -1,5 +1,7 @@
 package com.example.springtransaction.propagation;
 
+import com.example.springtransaction.sql.CountSql;
+import com.example.springtransaction.sql.SqlBudget;
 import lombok.extern.slf4j.Slf4j;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -24,6 +26,7 @@ import javax.sql.DataSource;
  */
 @Slf4j
 @SpringBootTest
+@CountSql
 public class BasicTxTest {
 
     @Autowired PlatformTransactionManager txManager;
@@ -37,6 +40,7 @@ public class BasicTxTest {
     }
 
     @Test
+    @SqlBudget(selects = 0, inserts = 0, updates = 0, commits = 1, rollbacks = 0, connections = 1)
     void commit() {
         log.info("트랜잭션 시작");
         TransactionStatus status = txManager.getTransaction(new DefaultTransactionAttribute()); // 트랜잭션 매니저를 통해 트랜잭션 획득
@@ -46,6 +50,7 @@ public class BasicTxTest {
     }
 
     @Test
+    @SqlBudget(selects = 0, inserts = 0, updates = 0, commits = 0, rollbacks = 1, connections = 1)
     void rollback() {
         log.info("트랜잭션 시작");
         TransactionStatus status = txManager.getTransaction(new DefaultTransactionAttribute());  // 트랜잭션 매니저를 통해 트랜잭션 획득
@@ -60,6 +65,7 @@ public class BasicTxTest {
      * 트랜잭션이 각각 수행되면서 사용되는 DB 커넥션도 각각 다르다.
      */
     @Test
+    @SqlBudget(selects = 0, inserts = 0, updates = 0, commits = 2, rollbacks = 0, connections = 2)
     void double_commit() {
         log.info("트랜잭션1 시작");
         TransactionStatus transaction1 = txManager.getTransaction(new DefaultTransactionAttribute());
@@ -76,6 +82,7 @@ public class BasicTxTest {
      * 트랜잭션1은 커밋, 트랜잭션2는 롤백
      */
     @Test
+    @SqlBudget(selects = 0, inserts = 0, updates = 0, commits = 1, rollbacks = 1, connections = 2)
     void double_commit_rollback() {
         log.info("트랜잭션1 시작");
         TransactionStatus transaction1 = txManager.getTransaction(new DefaultTransactionAttribute());
@@ -96,6 +103,7 @@ public class BasicTxTest {
      * 트랜잭션 매니저를 통해 논리 트랜잭션을 관리하고, 모든 논리 트랜잭션이 커밋되면 물리 트랜잭션이 커밋된다.
      */
     @Test
+    @SqlBudget(selects = 0, inserts = 0, updates = 0, commits = 1, rollbacks = 0, connections = 1)
     void inner_commit() {
         // 처음 트랜잭션을 시작한 외부 트랜잭션이 실제 물리 트랜잭션을 관리한다.
         log.info("외부 트랜잭션 시작");
@@ -120,6 +128,7 @@ public class BasicTxTest {
      * 이후 외부 트랜잭션이 롤백되면서 전체 내용이 롤백된다.
      */
     @Test
+    @SqlBudget(selects = 0, inserts = 0, updates = 0, commits = 0, rollbacks = 1, connections = 1)
     void outer_rollback() {
         log.info("외부 트랜잭션 시작");
         TransactionStatus outer = txManager.getTransaction(new DefaultTransactionAttribute());
@@ -145,6 +154,7 @@ public class BasicTxTest {
      * UnexpectedRollbackException 예외를 던진다.
      */
     @Test
+    @SqlBudget(selects = 0, inserts = 0, updates = 0, commits = 0, rollbacks = 1, connections = 1)
     void inner_rollback() {
         log.info("외부 트랜잭션 시작");
         TransactionStatus outer = txManager.getTransaction(new DefaultTransactionAttribute());
@@ -178,6 +188,7 @@ public class BasicTxTest {
      * REQUIRES_NEW를 사용하면 데이터베이스 커넥션이 동시에 2개 사용된다는 점 주의 !
      */
     @Test
+    @SqlBudget(selects = 0, inserts = 0, updates = 0, commits = 1, rollbacks = 1, connections = 2)
     void inner_rollback_requires_new() {
         log.info("외부 트랜잭션 시작");
         TransactionStatus outer = txManager.getTransaction(new DefaultTransactionAttribute());
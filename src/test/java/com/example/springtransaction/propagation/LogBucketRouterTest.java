@@ -0,0 +1,102 @@
+package com.example.springtransaction.propagation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import static org.assertj.core.api.Assertions.*;
+
+@Slf4j
+@SpringBootTest
+class LogBucketRouterTest {
+
+    @Autowired
+    LogBucketRouter router;
+    @Autowired
+    LogRepository logRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void routeByCreatedAt() {
+        // given
+        Log today = new Log("bucket_today");
+        Log old = new Log("bucket_old");
+        old.setCreatedAt(LocalDateTime.now().minusDays(40));
+        router.ensureBucket(old.getCreatedAt().toLocalDate());
+
+        // when
+        logRepository.save(today);
+        logRepository.save(old);
+
+        // then : 생성 일자별 버킷에 저장되고, 버킷을 구분하지 않고 조회된다.
+        assertThat(router.getBuckets()).contains(LocalDate.now(), old.getCreatedAt().toLocalDate());
+        assertThat(logRepository.find("bucket_today")).get().extracting(Log::getId).isEqualTo(today.getId());
+        assertThat(logRepository.find("bucket_old")).get().extracting(Log::getId).isEqualTo(old.getId());
+    }
+
+    @Test
+    void purgeDropsWholeBuckets() {
+        // given
+        Log old = new Log("bucket_purge");
+        old.setCreatedAt(LocalDateTime.now().minusDays(50));
+        router.ensureBucket(old.getCreatedAt().toLocalDate());
+        logRepository.save(old);
+        logRepository.save(new Log("bucket_keep"));
+
+        // when : 보관 기간(30일)이 지난 버킷을 삭제한다.
+        int dropped = router.purgeBefore(LocalDate.now().minusDays(30));
+
+        // then
+        assertThat(dropped).isGreaterThanOrEqualTo(1);
+        assertThat(router.getBuckets()).doesNotContain(old.getCreatedAt().toLocalDate());
+        assertThat(logRepository.find("bucket_purge")).isEmpty();
+        assertThat(logRepository.find("bucket_keep")).isPresent();
+    }
+
+    @Test
+    void insertDoesNotCreateBucket() {
+        // given : 버킷이 없는 일자의 로그
+        Log missing = new Log("bucket_missing");
+        missing.setCreatedAt(LocalDateTime.now().minusDays(80));
+
+        // when, then : 저장 트랜잭션 안에서 DDL(별도 커넥션)을 실행하지 않고 실패한다.
+        assertThatThrownBy(() -> logRepository.save(missing)).isInstanceOf(IllegalStateException.class);
+        assertThat(router.getBuckets()).doesNotContain(missing.getCreatedAt().toLocalDate());
+    }
+
+    /**
+     * 다른 인스턴스가 버킷을 삭제하거나 만들어도 조회할 수 있다.
+     */
+    @Test
+    void bucketsChangedElsewhere() {
+        // given : 조회 SQL 에 포함된 버킷
+        LocalDate dropped = LocalDate.now().minusDays(60);
+        router.ensureBucket(dropped);
+        logRepository.save(new Log("bucket_elsewhere"));
+        assertThat(logRepository.find("bucket_elsewhere")).isPresent();
+
+        // when : 다른 인스턴스가 버킷을 삭제한다.
+        jdbcTemplate.execute("drop table log_" + dropped.format(DateTimeFormatter.BASIC_ISO_DATE));
+
+        // then : table not found 대신 목록을 다시 읽고 조회한다.
+        assertThat(logRepository.find("bucket_elsewhere")).isPresent();
+        assertThat(router.getBuckets()).doesNotContain(dropped);
+
+        // when : 다른 인스턴스가 버킷을 만든다.
+        LocalDate created = LocalDate.now().minusDays(70);
+        String table = "log_" + created.format(DateTimeFormatter.BASIC_ISO_DATE);
+        jdbcTemplate.execute("create table " + table + " (id bigint not null primary key, message varchar(255), created_at timestamp not null)");
+        jdbcTemplate.update("insert into " + table + " values (-1, 'bucket_created_elsewhere', current_timestamp)");
+
+        // then
+        assertThat(router.refreshBuckets()).isTrue();
+        assertThat(logRepository.find("bucket_created_elsewhere")).isPresent();
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.springtransaction.propagation;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class LogCircuitBreakerTest {
+
+    @Test
+    void openAfterThreshold() {
+        LogCircuitBreaker circuitBreaker = new LogCircuitBreaker(3, 10_000);
+
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+        assertThat(circuitBreaker.allowRequest()).isTrue();
+
+        circuitBreaker.onFailure();
+        assertThat(circuitBreaker.getState()).isEqualTo(LogCircuitBreaker.State.OPEN);
+        assertThat(circuitBreaker.allowRequest()).isFalse();
+    }
+
+    @Test
+    void halfOpenAllowsSingleProbe() throws InterruptedException {
+        LogCircuitBreaker circuitBreaker = new LogCircuitBreaker(1, 50);
+        circuitBreaker.onFailure();
+
+        Thread.sleep(100);
+        assertThat(circuitBreaker.allowRequest()).isTrue();
+        assertThat(circuitBreaker.getState()).isEqualTo(LogCircuitBreaker.State.HALF_OPEN);
+        assertThat(circuitBreaker.allowRequest()).isFalse();
+
+        // 시험 요청이 실패하면 다시 열린다.
+        circuitBreaker.onFailure();
+        assertThat(circuitBreaker.getState()).isEqualTo(LogCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void closeOnProbeSuccess() throws InterruptedException {
+        LogCircuitBreaker circuitBreaker = new LogCircuitBreaker(1, 50);
+        circuitBreaker.onFailure();
+
+        Thread.sleep(100);
+        assertThat(circuitBreaker.allowRequest()).isTrue();
+        circuitBreaker.onSuccess();
+        assertThat(circuitBreaker.isClosed()).isTrue();
+    }
+
+    @Test
+    void ignoredFailureKeepsState() throws InterruptedException {
+        LogCircuitBreaker circuitBreaker = new LogCircuitBreaker(2, 50);
+
+        // 닫힌 상태에서는 실패로 세지 않는다.
+        for (int i = 0; i < 5; i++) {
+            circuitBreaker.onIgnoredFailure();
+        }
+        assertThat(circuitBreaker.isClosed()).isTrue();
+
+        // 시험 요청이 무시된 실패로 끝나면 다음 요청이 바로 다시 시험한다.
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+        Thread.sleep(100);
+        assertThat(circuitBreaker.allowRequest()).isTrue();
+        circuitBreaker.onIgnoredFailure();
+        assertThat(circuitBreaker.allowRequest()).isTrue();
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.springtransaction.propagation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+
+/**
+ * 로그 저장 서킷 브레이커와 spill 파일 재처리
+ * DB 장애가 failure-threshold 만큼 쌓이면 서킷이 열리고, 로그는 DB 대신 spill 파일에 기록된다.
+ * open-millis 가 지난 뒤 시험 저장이 성공하면 서킷이 닫히고 spill 파일의 로그가 DB에 한 번씩 저장된다.
+ * '로그예외' 는 로그 한 건의 문제이므로 서킷 상태를 바꾸지 않는다.
+ */
+@Slf4j
+@SpringBootTest(properties = {
+        "log.circuit.enabled=true",
+        "log.circuit.failure-threshold=2",
+        "log.circuit.open-millis=300"
+})
+class LogWriterTest {
+
+    @Autowired
+    LogWriter logWriter;
+    @SpyBean
+    LogRepository logRepository;
+    @Autowired
+    MemberService memberService;
+
+    // 'DB장애' 로 시작하는 로그는 커넥션을 얻지 못한 것처럼 실패한다.
+    @BeforeEach
+    void databaseFailure() {
+        doThrow(new CannotGetJdbcConnectionException("DB 장애"))
+                .when(logRepository).save(argThat(log -> log != null && log.getMessage().startsWith("DB장애")));
+    }
+
+    @Test
+    void circuitOpen_spillAndReplay() throws InterruptedException {
+        // given : DB 장애로 서킷이 열린다.
+        logWriter.write(new Log("DB장애_circuit_1"));
+        logWriter.write(new Log("DB장애_circuit_2"));
+        assertThat(logWriter.getCircuitState()).isEqualTo(LogCircuitBreaker.State.OPEN);
+
+        // when : 서킷이 열려 있는 동안에는 spill 파일에 기록된다.
+        logWriter.write(new Log("spill_1"));
+        logWriter.write(new Log("spill_2"));
+        assertTrue(logRepository.find("spill_1").isEmpty());
+        assertTrue(logRepository.find("spill_2").isEmpty());
+
+        // when : 대기 시간이 지난 뒤 시험 저장이 성공하면 서킷이 닫힌다.
+        Thread.sleep(400);
+        logWriter.write(new Log("spill_probe"));
+        assertThat(logWriter.getCircuitState()).isEqualTo(LogCircuitBreaker.State.CLOSED);
+
+        // then : spill 로그가 DB에 재처리된다.
+        waitUntilPresent("spill_1");
+        waitUntilPresent("spill_2");
+        assertTrue(logRepository.find("spill_probe").isPresent());
+    }
+
+    @Test
+    void logExceptionKeepsCircuitClosed() {
+        // when : failure-threshold 보다 많이 '로그예외' 로 가입한다.
+        for (int i = 0; i < 5; i++) {
+            memberService.joinV2("로그예외_circuit_closed_" + i);
+        }
+
+        // then : 서킷은 닫혀 있고 정상 로그는 DB에 바로 저장된다.
+        assertThat(logWriter.getCircuitState()).isEqualTo(LogCircuitBreaker.State.CLOSED);
+        memberService.joinV2("circuit_closed_healthy");
+        assertTrue(logRepository.find("circuit_closed_healthy").isPresent());
+    }
+
+    @Test
+    void logExceptionProbeDoesNotReopen() throws InterruptedException {
+        // given : DB 장애로 서킷이 열리고 대기 시간이 지났다.
+        logWriter.write(new Log("DB장애_probe_1"));
+        logWriter.write(new Log("DB장애_probe_2"));
+        Thread.sleep(400);
+
+        // when : 시험 저장이 '로그예외' 로 실패한다.
+        logWriter.write(new Log("로그예외_probe"));
+
+        // then : 다시 대기하지 않고 다음 요청이 바로 시험 저장한다.
+        logWriter.write(new Log("probe_healthy"));
+        assertThat(logWriter.getCircuitState()).isEqualTo(LogCircuitBreaker.State.CLOSED);
+        assertTrue(logRepository.find("probe_healthy").isPresent());
+    }
+
+    private void waitUntilPresent(String message) throws InterruptedException {
+        for (int i = 0; i < 50 && logRepository.find(message).isEmpty(); i++) {
+            Thread.sleep(100);
+        }
+        assertTrue(logRepository.find(message).isPresent());
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.springtransaction.propagation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.*;
+
+@Slf4j
+@SpringBootTest
+class MemberExistenceFilterTest {
+
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    MemberExistenceFilter memberExistenceFilter;
+    @Autowired
+    PlatformTransactionManager txManager;
+
+    @Test
+    void addedAfterCommit() {
+        // given
+        String username = "bloom_joined";
+        assertThat(memberService.isUsernameTaken(username)).isFalse();
+
+        // when
+        memberService.joinV1(username);
+
+        // then
+        assertThat(memberExistenceFilter.mightExist(username)).isTrue();
+        assertThat(memberService.isUsernameTaken(username)).isTrue();
+    }
+
+    @Test
+    void notAddedOnRollback() {
+        // given
+        TransactionTemplate txTemplate = new TransactionTemplate(txManager);
+
+        // when : 가입 트랜잭션이 롤백된다.
+        txTemplate.executeWithoutResult(status -> {
+            memberRepository.save(new Member("bloom_rollback"));
+            memberExistenceFilter.addAfterCommit("bloom_rollback");
+            status.setRollbackOnly();
+        });
+
+        // then
+        assertThat(memberExistenceFilter.mightExist("bloom_rollback")).isFalse();
+    }
+
+    @Test
+    void falsePositiveRate() {
+        // given : 1만 건, 목표 거짓 양성 비율 1%
+        UsernameBloomFilter filter = new UsernameBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("member" + i);
+        }
+
+        // when
+        int falsePositives = 0;
+        for (int i = 10_000; i < 110_000; i++) {
+            if (filter.mightContain("member" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // then : 추가한 username 은 항상 있다고 답하고, 거짓 양성은 목표 근처이다.
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("member" + i)).isTrue();
+        }
+        double observed = falsePositives / 100_000.0;
+        log.info("observed={}, expected={}, memory={}bytes, k={}", observed, filter.expectedFpp(),
+                filter.memoryBytes(), filter.getHashCount());
+        assertThat(observed).isLessThan(0.02);
+        assertThat(filter.expectedFpp()).isLessThan(0.02);
+        assertThat(filter.approximateElementCount()).isBetween(9_000L, 11_000L);
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.springtransaction.propagation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 회원 가입 묶음 처리
+ * 동시에 들어온 가입 요청은 하나의 트랜잭션으로 묶여서 저장되지만, 결과는 요청마다 따로 받는다.
+ */
+@Slf4j
+@SpringBootTest(properties = {
+        "member.join.batch.enabled=true",
+        "member.join.batch.window-millis=50"
+})
+class MemberJoinBatcherTest {
+
+    @Autowired
+    MemberJoinBatcher memberJoinBatcher;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    LogRepository logRepository;
+    @Autowired
+    MemberExistenceFilter memberExistenceFilter;
+    @Autowired
+    PlatformTransactionManager txManager;
+
+    @Test
+    void batchJoin_success() {
+        // given
+        List<String> usernames = List.of("batch_success_1", "batch_success_2", "batch_success_3");
+
+        // when
+        CompletableFuture<?>[] results = usernames.stream()
+                .map(memberJoinBatcher::join)
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(results).orTimeout(5, TimeUnit.SECONDS).join();
+
+        // then : 모든 데이터가 정상 저장된다.
+        for (String username : usernames) {
+            assertTrue(memberRepository.find(username).isPresent());
+            assertTrue(logRepository.find(username).isPresent());
+        }
+    }
+
+    /**
+     * 같은 묶음에 '로그예외' 회원이 섞여 있어도 나머지 회원은 저장된다.
+     * 실패한 회원은 joinV1 과 같이 member, log 모두 롤백된다.
+     */
+    @Test
+    void batchJoin_bisect() {
+        // given
+        String bad = "로그예외_batch_bisect";
+        List<String> good = List.of("batch_bisect_1", "batch_bisect_2", "batch_bisect_3", "batch_bisect_4");
+
+        // when
+        CompletableFuture<Void> first = memberJoinBatcher.join(good.get(0));
+        CompletableFuture<Void> second = memberJoinBatcher.join(good.get(1));
+        CompletableFuture<Void> badResult = memberJoinBatcher.join(bad);
+        CompletableFuture<Void> third = memberJoinBatcher.join(good.get(2));
+        CompletableFuture<Void> fourth = memberJoinBatcher.join(good.get(3));
+
+        // then
+        assertThatThrownBy(() -> badResult.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(RuntimeException.class);
+        CompletableFuture.allOf(first, second, third, fourth).orTimeout(5, TimeUnit.SECONDS).join();
+
+        for (String username : good) {
+            assertTrue(memberRepository.find(username).isPresent());
+            assertTrue(logRepository.find(username).isPresent());
+        }
+        assertTrue(memberRepository.find(bad).isEmpty());
+        assertTrue(logRepository.find(bad).isEmpty());
+    }
+
+    /**
+     * 종료 전에 받은 요청은 처리하고, 종료 후의 요청은 기다리지 않고 실패한다.
+     */
+    @Test
+    void joinAfterStop() throws InterruptedException {
+        // given : 컨텍스트의 빈을 멈추지 않도록 따로 만든다.
+        MemberJoinBatcher batcher = new MemberJoinBatcher(memberRepository, logRepository, memberExistenceFilter,
+                txManager, 50, 100);
+        batcher.start();
+        CompletableFuture<Void> beforeStop = batcher.join("batch_before_stop");
+
+        // when
+        batcher.stop();
+        CompletableFuture<Void> afterStop = batcher.join("batch_after_stop");
+
+        // then
+        beforeStop.orTimeout(5, TimeUnit.SECONDS).join();
+        assertTrue(memberRepository.find("batch_before_stop").isPresent());
+        assertThat(afterStop).isCompletedExceptionally();
+        assertTrue(memberRepository.find("batch_after_stop").isEmpty());
+    }
+}
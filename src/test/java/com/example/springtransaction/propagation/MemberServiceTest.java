@@ -1,5 +1,7 @@
 package com.example.springtransaction.propagation;
 
+import com.example.springtransaction.sql.CountSql;
+import com.example.springtransaction.sql.SqlBudget;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -16,9 +18,13 @@ import static org.junit.jupiter.api.Assertions.*;
  *
  * 논리 트랜잭션 중 하나라도 롤백되면 전체 트랜잭션은 롤백된다.
  * 내부 트랜잭션이 롤백되었는데 외부 트랜잭션이 커밋되면 UnexpectedRollbackException 예외가 발생한다.
+ *
+ * SQL budget : 가입은 회원 트랜잭션 커넥션 1 + 로그 REQUIRES_NEW 커넥션 1, 시퀀스는 회원, outbox 이벤트, 로그 각각 1
+ * then 의 find 두 번은 트랜잭션 없이 각각 커넥션 1, select 1
  */
 @Slf4j
 @SpringBootTest
+@CountSql
 class MemberServiceTest {
 
     @Autowired
@@ -35,6 +41,7 @@ class MemberServiceTest {
      * LogRepository : @Transactional On
      */
     @Test
+    @SqlBudget(selects = 2, inserts = 3, updates = 0, sequences = 3, commits = 2, rollbacks = 0, connections = 4)
     void outerTxOff_success() {
         // given
         String username = "outerTxOff_success";
@@ -55,6 +62,7 @@ class MemberServiceTest {
      * 회원 리포지토리는 정상 동작하지만, 로그 리포지토리에서 예외 발생
      */
     @Test
+    @SqlBudget(selects = 2, inserts = 1, updates = 0, sequences = 3, commits = 0, rollbacks = 2, connections = 4)
     void outerTxOff_fail() {
         // given
         String username = "로그예외_outerTxOff_fail";
@@ -78,6 +86,7 @@ class MemberServiceTest {
      * MemberService만 트랜잭션을 처리하기 때문에 논리 트랜잭션, 물리 트랜잭션, 외부 트랜잭션, 내부 트랜잭션, 트랜잭션 전파, rollbackOnly 등을 고려할 필요가 없다.
      */
     @Test
+    @SqlBudget(selects = 2, inserts = 3, updates = 0, sequences = 3, commits = 2, rollbacks = 0, connections = 4)
     void singleTx() {
         // given
         String username = "singleTx";
@@ -98,6 +107,7 @@ class MemberServiceTest {
      * LogRepository : @Transactional On
      */
     @Test
+    @SqlBudget(selects = 2, inserts = 3, updates = 0, sequences = 3, commits = 2, rollbacks = 0, connections = 4)
     void outerTxOn_success() {
         // given
         String username = "outerTxOn_success";
@@ -117,6 +127,7 @@ class MemberServiceTest {
      * LogRepository : @Transactional On Exception
      */
     @Test
+    @SqlBudget(selects = 2, inserts = 1, updates = 0, sequences = 3, commits = 0, rollbacks = 2, connections = 4)
     void outerTxOn_fail() {
         // given
         String username = "로그예외_outerTxOn_fail";
@@ -141,6 +152,7 @@ class MemberServiceTest {
      * 그리고 UnexpectedRollbackException 이 던져진다.
      */
     @Test
+    @SqlBudget(selects = 2, inserts = 3, updates = 0, sequences = 3, commits = 1, rollbacks = 1, connections = 4)
     void recoverException_fail() {
         // given
         String username = "로그예외_recoverException_fail";
@@ -161,6 +173,7 @@ class MemberServiceTest {
      * 따라서 해당 트랜잭션 안에서는 DB 커넥션도 별도로 사용하게 된다.
      */
     @Test
+    @SqlBudget(selects = 2, inserts = 3, updates = 0, sequences = 3, commits = 1, rollbacks = 1, connections = 4)
     void recoverException_success() {
         // given
         String username = "로그예외_recoverException_success";
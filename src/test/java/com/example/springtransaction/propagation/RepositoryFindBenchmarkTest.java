@@ -0,0 +1,76 @@
+package com.example.springtransaction.propagation;
+
+import com.example.springtransaction.persistence.QueryPlanCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManager;
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+/**
+ * find() 호출 한 번의 지연 시간과 할당량
+ * - 이전 : em.createQuery(JPQL 문자열) -> 호출마다 플랜 캐시 조회, 쿼리 객체 생성
+ * - NamedQuery : 시작할 때 변환된 쿼리를 사용
+ * - 로그 : 버킷 조회 SQL 문자열을 재사용
+ * 할당량은 com.sun.management.ThreadMXBean 의 스레드별 할당 바이트로 측정한다.
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.root=WARN",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.com.example.springtransaction.propagation.RepositoryFindBenchmarkTest=INFO"
+})
+class RepositoryFindBenchmarkTest {
+
+    private static final int WARMUP = 20_000;
+    private static final int CALLS = 100_000;
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    LogRepository logRepository;
+    @Autowired
+    LogBucketRouter logBucketRouter;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    QueryPlanCacheMetrics queryPlanCacheMetrics;
+
+    @Test
+    void findLatencyAndAllocation() {
+        memberRepository.save(new Member("benchmark"));
+        logRepository.save(new Log("benchmark"));
+
+        measure("member createQuery", () -> em.createQuery("select m from Member m where m.username=:username", Member.class)
+                .setParameter("username", "benchmark")
+                .getResultList().stream().findAny());
+        measure("member namedQuery", () -> memberRepository.find("benchmark"));
+        measure("log bucket", () -> logRepository.find("benchmark"));
+
+        log.info("plan cache hit ratio={}, prepared statements={}, log find query hits={}, misses={}",
+                queryPlanCacheMetrics.getPlanCacheHitRatio(), queryPlanCacheMetrics.getPrepareStatementCount(),
+                logBucketRouter.getFindQueryHits(), logBucketRouter.getFindQueryMisses());
+    }
+
+    private void measure(String name, Supplier<?> find) {
+        for (int i = 0; i < WARMUP; i++) {
+            find.get();
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < CALLS; i++) {
+            find.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        log.info("[{}] {}ns/call, {}bytes/call", name, elapsed / CALLS, allocated / CALLS);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.springtransaction.seed;
+
+import com.example.springtransaction.order.Order;
+import com.example.springtransaction.order.OrderRepository;
+import com.example.springtransaction.propagation.LogBucketRouter;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.*;
+
+@Slf4j
+@SpringBootTest
+class DataSeederTest {
+
+    @Autowired
+    DataSeeder dataSeeder;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    OrderRepository orderRepository;
+    @Autowired
+    LogBucketRouter logBucketRouter;
+
+    @Test
+    void seed() {
+        // given
+        long orders = count("orders");
+        long members = count("member");
+        long logs = logBucketRouter.count();
+
+        SeedPlan plan = new SeedPlan();
+        plan.setOrders(1_000);
+        plan.setMembers(200);
+        plan.setCompletedRatio(0.5);
+        plan.setUsernameCardinality(10);
+        plan.setChunkSize(300);
+
+        // when
+        dataSeeder.seed(plan);
+
+        // then
+        assertThat(count("orders")).isEqualTo(orders + 1_000);
+        assertThat(count("member")).isEqualTo(members + 200);
+        assertThat(logBucketRouter.count()).isEqualTo(logs + 200);
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(distinct username) from orders where username like 'user%'", Long.class))
+                .isLessThanOrEqualTo(10);
+
+        // then : 시퀀스가 생성한 id 다음으로 옮겨졌으므로 JPA 저장과 id가 겹치지 않는다.
+        long maxId = jdbcTemplate.queryForObject("select max(id) from " + logBucketRouter.ensureBucket(LocalDate.now()), Long.class);
+        Order order = new Order();
+        order.setUsername("정상");
+        orderRepository.save(order);
+        assertThat(order.getId()).isGreaterThan(maxId);
+    }
+
+    private long count(String table) {
+        return jdbcTemplate.queryForObject("select count(*) from " + table, Long.class);
+    }
+}
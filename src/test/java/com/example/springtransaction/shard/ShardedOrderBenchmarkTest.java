@@ -0,0 +1,63 @@
+package com.example.springtransaction.shard;
+
+import com.example.springtransaction.order.NotEnoughMoneyException;
+import com.example.springtransaction.order.Order;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * shard 수에 따른 주문 처리량
+ * shard 마다 별도의 H2 데이터베이스이므로 shard 를 늘리면 쓰기 락 경합이 나누어진다.
+ * 동시 요청 수는 같게 두고 shard 1, 2, 4, 8 개의 처리량을 비교한다.
+ */
+@Slf4j
+@Tag("benchmark")
+class ShardedOrderBenchmarkTest {
+
+    private static final int ORDERS = 40_000;
+    private static final int CONCURRENCY = 32;
+
+    @Test
+    void throughputByShardCount() throws Exception {
+        for (int shardCount : new int[]{1, 2, 4, 8}) {
+            ShardedOrderService service = new ShardedOrderConfig().shardedOrderService(shardCount,
+                    "jdbc:h2:mem:orders-benchmark-" + shardCount + "-%d;DB_CLOSE_DELAY=-1", CONCURRENCY);
+            try {
+                run(service, ORDERS / 10);
+                long start = System.nanoTime();
+                run(service, ORDERS);
+                long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                log.info("[shard {}] {}건 {}ms, {} orders/s", shardCount, ORDERS, elapsedMillis,
+                        ORDERS * 1000L / Math.max(1, elapsedMillis));
+            } finally {
+                service.destroy();
+            }
+        }
+    }
+
+    private void run(ShardedOrderService service, int orders) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY);
+        Future<?>[] results = new Future<?>[orders];
+        for (int i = 0; i < orders; i++) {
+            Order order = new Order();
+            order.setUsername("user" + i);
+            results[i] = executor.submit(() -> {
+                try {
+                    service.order(order);
+                } catch (NotEnoughMoneyException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        }
+        for (Future<?> result : results) {
+            result.get(5, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.springtransaction.shard;
+
+import com.example.springtransaction.order.NotEnoughMoneyException;
+import com.example.springtransaction.order.Order;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+@Slf4j
+@SpringBootTest(properties = "order.shard.enabled=true")
+class ShardedOrderServiceTest {
+
+    @Autowired
+    ShardedOrderService shardedOrderService;
+
+    @Test
+    void complete() throws NotEnoughMoneyException {
+        // given
+        Order order = newOrder("정상");
+
+        // when
+        shardedOrderService.order(order);
+
+        // then : id 로 shard 를 찾아서 조회한다.
+        Order findOrder = shardedOrderService.findById(order.getId()).get();
+        assertThat(findOrder.getPayStatus()).isEqualTo("완료");
+    }
+
+    @Test
+    void runtimeException() {
+        // given
+        Order order = newOrder("예외");
+
+        // when
+        assertThatThrownBy(() -> shardedOrderService.order(order)).isInstanceOf(RuntimeException.class);
+
+        // then : 롤백 됐기 때문에 데이터가 없어야 한다.
+        assertThat(shardedOrderService.findById(order.getId())).isEmpty();
+    }
+
+    @Test
+    void bizException() {
+        // given
+        Order order = newOrder("잔고부족");
+
+        // when
+        assertThatThrownBy(() -> shardedOrderService.order(order)).isInstanceOf(NotEnoughMoneyException.class);
+
+        // then : 체크 예외지만 '대기' 상태로 커밋된다.
+        assertThat(shardedOrderService.findById(order.getId()).get().getPayStatus()).isEqualTo("대기");
+    }
+
+    @Test
+    void scatterGather() throws NotEnoughMoneyException {
+        // given : 여러 username 의 주문이 여러 shard 에 나누어 저장된다.
+        Map<String, Long> before = shardedOrderService.countByPayStatus();
+        for (int i = 0; i < 40; i++) {
+            shardedOrderService.order(newOrder("shard_user_" + i));
+        }
+
+        // when
+        Map<String, Long> after = shardedOrderService.countByPayStatus();
+
+        // then : 모든 shard 의 결과가 합쳐진다.
+        assertThat(after.get("완료") - before.getOrDefault("완료", 0L)).isEqualTo(40);
+        // 같은 username 의 주문은 하나의 shard 에만 있다.
+        assertThat(shardedOrderService.findByUsername("shard_user_7")).hasSize(1);
+    }
+
+    @Test
+    void crossShardTransaction() {
+        ShardTransactions shardTransactions = shardedOrderService.getShardTransactions();
+
+        // 같은 shard 는 진행중인 트랜잭션에 참여한다.
+        assertThat(shardTransactions.execute(0, outer -> shardTransactions.execute(0, inner -> inner.isNewTransaction())))
+                .isFalse();
+
+        // 진행중인 shard 트랜잭션 안에서 다른 shard 트랜잭션은 시작할 수 없다.
+        assertThatThrownBy(() -> shardTransactions.execute(0, outer -> shardTransactions.execute(1, inner -> null)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("다른 shard");
+
+        // 트랜잭션이 끝나면 shard 지정도 원래대로 돌아온다.
+        assertThat(ShardRoutingDataSource.currentShard()).isNull();
+    }
+
+    private Order newOrder(String username) {
+        Order order = new Order();
+        order.setUsername(username);
+        return order;
+    }
+}
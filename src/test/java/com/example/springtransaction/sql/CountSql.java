@@ -0,0 +1,20 @@
+package com.example.springtransaction.sql;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.context.annotation.Import;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 테스트 클래스의 SQL 을 센다. 메서드마다 @SqlBudget 으로 허용량을 지정한다.
+ * @SpringBootTest 와 함께 사용한다.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Import(SqlCountingConfiguration.class)
+@ExtendWith(SqlBudgetExtension.class)
+public @interface CountSql {
+}
@@ -0,0 +1,34 @@
+package com.example.springtransaction.sql;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 테스트 메서드 하나에서 허용하는 SQL, 커밋, 커넥션 획득 수 (최대값)
+ * given, when, then 전체를 센다. -1 이면 검사하지 않는다.
+ *
+ * 시퀀스 조회(next value for)는 selects 가 아니라 sequences 로 센다.
+ * JDBC batch 는 addBatch 한 건을 한 문장으로 센다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SqlBudget {
+
+    int selects() default -1;
+
+    int inserts() default -1;
+
+    int updates() default -1;
+
+    int deletes() default -1;
+
+    int sequences() default -1;
+
+    int commits() default -1;
+
+    int rollbacks() default -1;
+
+    int connections() default -1;
+}
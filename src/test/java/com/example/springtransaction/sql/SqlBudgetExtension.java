@@ -0,0 +1,56 @@
+package com.example.springtransaction.sql;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 테스트마다 SQL, 커밋, 커넥션 획득 수를 세고 @SqlBudget 을 넘으면 실패시킨다.
+ * 테스트 클래스에는 @CountSql 을 붙인다.
+ */
+@Slf4j
+public class SqlBudgetExtension implements BeforeEachCallback, AfterEachCallback {
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        counter(context).start();
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        SqlCounts counts = counter(context).stop();
+        log.info("[{}] {}", context.getDisplayName(), counts);
+
+        SqlBudget budget = context.getRequiredTestMethod().getAnnotation(SqlBudget.class);
+        if (budget == null || context.getExecutionException().isPresent()) {
+            return;
+        }
+        List<String> exceeded = new ArrayList<>();
+        check(exceeded, "selects", budget.selects(), counts.getSelects());
+        check(exceeded, "inserts", budget.inserts(), counts.getInserts());
+        check(exceeded, "updates", budget.updates(), counts.getUpdates());
+        check(exceeded, "deletes", budget.deletes(), counts.getDeletes());
+        check(exceeded, "sequences", budget.sequences(), counts.getSequences());
+        check(exceeded, "commits", budget.commits(), counts.getCommits());
+        check(exceeded, "rollbacks", budget.rollbacks(), counts.getRollbacks());
+        check(exceeded, "connections", budget.connections(), counts.getConnections());
+        assertThat(exceeded).as("SQL budget 초과 %s", counts).isEmpty();
+    }
+
+    private static void check(List<String> exceeded, String name, int budget, int actual) {
+        if (budget >= 0 && actual > budget) {
+            exceeded.add(name + " " + actual + " > " + budget);
+        }
+    }
+
+    private static SqlCounter counter(ExtensionContext context) {
+        return SpringExtension.getApplicationContext(context).getBean(SqlCounter.class);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.springtransaction.sql;
+
+/**
+ * 테스트 스레드에서 실행된 SQL 만 센다.
+ * 로그 재처리, 카운터 보정 같은 백그라운드 스레드의 SQL 은 테스트 결과에 섞이지 않는다.
+ */
+public class SqlCounter {
+
+    private volatile Thread recordingThread;
+    private volatile SqlCounts counts = new SqlCounts();
+
+    public void start() {
+        counts = new SqlCounts();
+        recordingThread = Thread.currentThread();
+    }
+
+    public SqlCounts stop() {
+        recordingThread = null;
+        return counts;
+    }
+
+    void statement(String sql) {
+        if (isRecording()) {
+            counts.statement(sql);
+        }
+    }
+
+    void commit() {
+        if (isRecording()) {
+            counts.commit();
+        }
+    }
+
+    void rollback() {
+        if (isRecording()) {
+            counts.rollback();
+        }
+    }
+
+    void connection() {
+        if (isRecording()) {
+            counts.connection();
+        }
+    }
+
+    private boolean isRecording() {
+        return recordingThread == Thread.currentThread();
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.springtransaction.sql;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+
+/**
+ * DataSource 를 SqlCountingDataSource 로 감싼다.
+ * EntityManagerFactory, JdbcTemplate 이 만들어지기 전에 감싸야 하므로 BeanPostProcessor 는 static 으로 등록한다.
+ */
+@TestConfiguration
+public class SqlCountingConfiguration {
+
+    @Bean
+    public SqlCounter sqlCounter() {
+        return new SqlCounter();
+    }
+
+    @Bean
+    public static BeanPostProcessor sqlCountingDataSourcePostProcessor(ObjectProvider<SqlCounter> sqlCounter) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof SqlCountingDataSource)) {
+                    return new SqlCountingDataSource((DataSource) bean, sqlCounter.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.springtransaction.sql;
+
+import com.example.springtransaction.jdbc.ConnectionProxy;
+import com.example.springtransaction.jdbc.JdbcProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 커넥션 획득, SQL 실행, 커밋, 롤백을 SqlCounter 에 기록하는 DataSource
+ * PreparedStatement 는 prepare 시점의 SQL 을 기억했다가 실행(execute*, addBatch)할 때 센다.
+ */
+public class SqlCountingDataSource extends DelegatingDataSource {
+
+    private final SqlCounter counter;
+
+    public SqlCountingDataSource(DataSource targetDataSource, SqlCounter counter) {
+        super(targetDataSource);
+        this.counter = counter;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Connection connection = super.getConnection();
+        counter.connection();
+        return new CountingConnection(connection).proxy();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        Connection connection = super.getConnection(username, password);
+        counter.connection();
+        return new CountingConnection(connection).proxy();
+    }
+
+    private class CountingConnection extends ConnectionProxy {
+
+        private CountingConnection(Connection target) {
+            super(target);
+        }
+
+        @Override
+        protected void beforeInvoke(Method method, Object[] args) {
+            switch (method.getName()) {
+                case "commit":
+                    counter.commit();
+                    break;
+                case "rollback":
+                    if (args == null) { // rollback(Savepoint) 는 트랜잭션 롤백이 아니다.
+                        counter.rollback();
+                    }
+                    break;
+            }
+        }
+
+        @Override
+        protected JdbcProxy<Statement> statementProxy(Statement statement, String sql) {
+            return new CountingStatement(statement, sql);
+        }
+    }
+
+    private class CountingStatement extends JdbcProxy<Statement> {
+
+        private final String preparedSql;
+
+        private CountingStatement(Statement target, String preparedSql) {
+            super(target);
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        protected Object intercept(Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "executeBatch":
+                    // addBatch 에서 이미 셌다.
+                    break;
+                case "addBatch":
+                    counter.statement(args == null ? preparedSql : (String) args[0]);
+                    break;
+                default:
+                    if (method.getName().startsWith("execute")) {
+                        counter.statement(args == null || args.length == 0 ? preparedSql : (String) args[0]);
+                    }
+            }
+            return proceed(method, args);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.springtransaction.sql;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 테스트 하나에서 센 SQL, 커밋, 롤백, 커넥션 획득 수
+ */
+@Getter
+@ToString
+public class SqlCounts {
+
+    private int selects;
+    private int inserts;
+    private int updates;
+    private int deletes;
+    private int sequences;
+    private int others;
+    private int commits;
+    private int rollbacks;
+    private int connections;
+
+    void statement(String sql) {
+        String normalized = sql.trim().toLowerCase();
+        if (normalized.contains("next value for")) {
+            sequences++;
+        } else if (normalized.startsWith("select") || normalized.startsWith("with")) {
+            selects++;
+        } else if (normalized.startsWith("insert")) {
+            inserts++;
+        } else if (normalized.startsWith("update")) {
+            updates++;
+        } else if (normalized.startsWith("delete")) {
+            deletes++;
+        } else {
+            others++;
+        }
+    }
+
+    void commit() {
+        commits++;
+    }
+
+    void rollback() {
+        rollbacks++;
+    }
+
+    void connection() {
+        connections++;
+    }
+}
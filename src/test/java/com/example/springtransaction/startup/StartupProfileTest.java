@@ -0,0 +1,53 @@
+package com.example.springtransaction.startup;
+
+import com.example.springtransaction.propagation.MemberRepository;
+import com.example.springtransaction.propagation.MemberService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.scheduling.config.ScheduledTaskHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * startup 프로필(지연 초기화)로 시작해도 트랜잭션과 스케줄이 그대로 동작하는지 확인한다.
+ */
+@Slf4j
+@ActiveProfiles("startup")
+@SpringBootTest(properties = {
+        "spring.main.lazy-initialization=true",
+        "startup.report-file=build/startup-report-test.properties"
+})
+class StartupProfileTest {
+
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    List<ScheduledTaskHolder> scheduledTaskHolders;
+
+    @Test
+    void oneTransaction() {
+        // when
+        memberService.joinV1("startupProfile");
+
+        // then
+        assertThat(memberRepository.find("startupProfile")).isPresent();
+        // ApplicationReadyEvent 에서 첫 트랜잭션을 실행하고 보고서를 남긴다. (StartupTimingReport)
+        assertThat(Paths.get("build/startup-report-test.properties")).exists();
+    }
+
+    @Test
+    void scheduledBeansAreNotLazy() {
+        // LogBucketRouter 의 버킷 관리 스케줄은 항상 등록된다.
+        assertThat(scheduledTaskHolders)
+                .flatExtracting(ScheduledTaskHolder::getScheduledTasks)
+                .isNotEmpty();
+    }
+}
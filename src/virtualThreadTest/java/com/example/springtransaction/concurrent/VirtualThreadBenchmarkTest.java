@@ -0,0 +1,65 @@
+package com.example.springtransaction.concurrent;
+
+import com.example.springtransaction.propagation.MemberService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 플랫폼 스레드와 가상 스레드 비교
+ * 커넥션 풀(10)과 bulkhead(5)를 고정하고 MemberService.joinV1 을 동시에 호출한다.
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.datasource.hikari.maximum-pool-size=10",
+        "bulkhead.member-join.max-concurrent=5",
+        "bulkhead.member-join.queue-timeout-millis=60000",
+        "logging.level.root=WARN",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.springframework.transaction.interceptor=WARN",
+        "logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN",
+        "logging.level.com.example.springtransaction.concurrent=INFO"
+})
+class VirtualThreadBenchmarkTest {
+
+    private static final int JOINS = 5_000;
+    private static final int PLATFORM_THREADS = 200;
+
+    @Autowired
+    MemberService memberService;
+
+    @Test
+    void platformVsVirtual() throws Exception {
+        // 워밍업
+        run("warmup", Executors.newFixedThreadPool(PLATFORM_THREADS), JOINS / 5);
+
+        long platform = run("platform", Executors.newFixedThreadPool(PLATFORM_THREADS), JOINS);
+        long virtual = run("virtual", Executors.newVirtualThreadPerTaskExecutor(), JOINS);
+        log.info("joinV1 {}건 platform({} threads)={}ms, virtual={}ms", JOINS, PLATFORM_THREADS, platform, virtual);
+    }
+
+    private long run(String name, ExecutorService executor, int joins) throws Exception {
+        long start = System.nanoTime();
+        try (executor) {
+            List<Future<?>> results = new ArrayList<>(joins);
+            for (int i = 0; i < joins; i++) {
+                String username = name + "_" + i;
+                results.add(executor.submit(() -> memberService.joinV1(username)));
+            }
+            for (Future<?> result : results) {
+                result.get(5, TimeUnit.MINUTES);
+            }
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.springtransaction.concurrent;
+
+import com.example.springtransaction.propagation.MemberRepository;
+import com.example.springtransaction.propagation.MemberService;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 가상 스레드에서 MemberService.joinV1 실행
+ * JFR jdk.VirtualThreadPinned 이벤트로 캐리어 스레드를 고정(pinning)한 위치를 수집한다.
+ * 고정 위치는 가상 스레드가 대기할 때 synchronized 블록 안에 있던 첫 번째 애플리케이션/라이브러리 프레임이다.
+ */
+@Slf4j
+@SpringBootTest(properties = {
+        "tx.executor.enabled=true",
+        "tx.executor.mode=virtual",
+        "spring.datasource.hikari.maximum-pool-size=10",
+        "bulkhead.member-join.max-concurrent=5",
+        "bulkhead.member-join.queue-timeout-millis=60000",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.springframework.transaction.interceptor=WARN",
+        "logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN"
+})
+class VirtualThreadPinningTest {
+
+    private static final int JOINS = 200;
+
+    @Autowired
+    TransactionalExecutor transactionalExecutor;
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Test
+    void detectPinning() throws Exception {
+        List<RecordedEvent> pinned = new CopyOnWriteArrayList<>();
+        try (RecordingStream recording = new RecordingStream()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.onEvent("jdk.VirtualThreadPinned", pinned::add);
+            recording.startAsync();
+
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < JOINS; i++) {
+                String username = "virtual_" + i;
+                results.add(transactionalExecutor.submit(() -> memberService.joinV1(username)));
+            }
+            for (Future<?> result : results) {
+                result.get(60, TimeUnit.SECONDS);
+            }
+            recording.stop();
+        }
+
+        // 고정 위치별 횟수
+        Map<String, Long> sites = pinned.stream()
+                .map(this::pinningSite)
+                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+        log.info("pinned events={}", pinned.size());
+        sites.forEach((site, count) -> log.info("pinned at {} : {}", site, count));
+
+        // then : 모든 가입이 저장되고, 애플리케이션 코드(bulkhead, 서비스)가 캐리어 스레드를 고정하지 않는다.
+        assertThat(memberRepository.find("virtual_0")).isPresent();
+        assertThat(memberRepository.find("virtual_" + (JOINS - 1))).isPresent();
+        assertThat(sites.keySet()).noneMatch(site -> site.startsWith("com.example.springtransaction"));
+    }
+
+    // JDK 내부 프레임을 건너뛴 첫 번째 프레임
+    private String pinningSite(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "unknown";
+        }
+        Optional<RecordedFrame> frame = event.getStackTrace().getFrames().stream()
+                .filter(RecordedFrame::isJavaFrame)
+                .filter(f -> !isJdkFrame(f.getMethod().getType().getName()))
+                .findFirst();
+        return frame.map(f -> f.getMethod().getType().getName() + "." + f.getMethod().getName()).orElse("jdk");
+    }
+
+    private boolean isJdkFrame(String className) {
+        return className.startsWith("java.") || className.startsWith("jdk.") || className.startsWith("sun.");
+    }
+}